@@ -1,5 +1,6 @@
 package org.max.authvs.annotation;
 
+import org.max.authvs.enums.OperationLogLevel;
 import org.max.authvs.enums.OperationType;
 
 import java.lang.annotation.*;
@@ -7,6 +8,9 @@ import java.lang.annotation.*;
 /**
  * 操作日志注解
  * 标记在需要记录操作日志的方法上
+ * <p>
+ * 高频查询接口可通过采样比例、记录级别和每分钟上限减少写入量；执行失败（抛出异常）的调用总是记录，
+ * 未记录的调用计入接口统计（GET /api/monitor/operation-log/endpoints）
  */
 @Target(ElementType.METHOD)
 @Retention(RetentionPolicy.RUNTIME)
@@ -35,6 +39,29 @@ public @interface OperationLog {
 
     /**
      * 是否记录返回结果
+     * 返回值在写入线程中序列化（最多 2000 字符），请求线程只保存引用不复制，
+     * 因此返回值在方法返回后不应再被修改（本项目的 VO 为 record 或构建后不再修改的对象）
      */
     boolean recordResult() default false;
+
+    /**
+     * 记录级别，为记录内容的上限：METADATA 不记录参数和结果，PARAMS 不记录结果，
+     * FULL 按 recordParams / recordResult 记录
+     */
+    OperationLogLevel level() default OperationLogLevel.FULL;
+
+    /**
+     * 采样比例（0~1），成功的调用按该比例随机记录
+     */
+    double sampleRate() default 1.0;
+
+    /**
+     * 每分钟最多记录的调用数（整个接口，当前节点），0 表示不限制
+     */
+    int maxPerMinute() default 0;
+
+    /**
+     * 每个用户每分钟最多记录的调用数（当前节点），0 表示不限制
+     */
+    int maxPerUserPerMinute() default 0;
 }
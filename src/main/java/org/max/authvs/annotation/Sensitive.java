@@ -0,0 +1,33 @@
+package org.max.authvs.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 敏感字段注解
+ * 标记在请求参数的字段（或 record 组件）上，操作日志记录参数时按类型脱敏
+ */
+@Target({ElementType.FIELD, ElementType.RECORD_COMPONENT})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Sensitive {
+
+    /**
+     * 脱敏方式
+     */
+    Type value() default Type.SECRET;
+
+    enum Type {
+        /**
+         * 整体替换为 ******（密码、密钥、令牌）
+         */
+        SECRET,
+        /**
+         * 邮箱，保留首字母和域名
+         */
+        EMAIL,
+        /**
+         * 手机号，保留前三位和后四位
+         */
+        MOBILE_PHONE
+    }
+}
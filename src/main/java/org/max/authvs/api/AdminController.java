@@ -13,6 +13,7 @@ import org.max.authvs.api.dto.admin.in.AdminUpdateParam;
 import org.max.authvs.api.dto.admin.out.AdminDetailVo;
 import org.max.authvs.api.dto.admin.out.AdminListVo;
 import org.max.authvs.api.dto.admin.out.RoleListVo;
+import org.max.authvs.enums.OperationLogLevel;
 import org.max.authvs.enums.OperationType;
 import org.max.authvs.service.AdminService;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -31,7 +32,8 @@ public class AdminController {
         this.adminService = adminService;
     }
 
-    @OperationLog(type = OperationType.QUERY, module = "用户管理", description = "分页查询管理员列表")
+    @OperationLog(type = OperationType.QUERY, module = "用户管理", description = "分页查询管理员列表",
+            level = OperationLogLevel.PARAMS, sampleRate = 0.1)
     @Operation(summary = "分页查询管理员列表", description = "查询后台管理员列表，支持按用户名、邮箱、手机号等条件查询，需要管理员列表权限")
     @PreAuthorize("@accessChecker.perm('PERM_ADMIN_LIST')")
     @PostMapping("/page")
@@ -44,7 +46,8 @@ public class AdminController {
         return ResultDTO.success(pageVo);
     }
 
-    @OperationLog(type = OperationType.QUERY, module = "用户管理", description = "查询管理员详情")
+    @OperationLog(type = OperationType.QUERY, module = "用户管理", description = "查询管理员详情",
+            maxPerUserPerMinute = 30)
     @Operation(summary = "获取管理员详细信息", description = "根据管理员ID查询管理员详细信息（包含角色和权限），需要管理员列表权限")
     @PreAuthorize("@accessChecker.perm('PERM_ADMIN_LIST')")
     @GetMapping("/{adminId}/detail")
@@ -86,7 +89,8 @@ public class AdminController {
         return ResultDTO.success(updated);
     }
 
-    @OperationLog(type = OperationType.QUERY, module = "用户管理", description = "获取管理员角色列表")
+    @OperationLog(type = OperationType.QUERY, module = "用户管理", description = "获取管理员角色列表",
+            maxPerUserPerMinute = 30)
     @Operation(summary = "获取管理员角色列表", description = "获取所有启用的角色列表，用于创建或编辑管理员时选择角色，需要管理员列表权限")
     @PreAuthorize("@accessChecker.perm('PERM_ADMIN_LIST')")
     @GetMapping("/roles")
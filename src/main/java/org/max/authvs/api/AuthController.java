@@ -8,6 +8,7 @@ import org.max.authvs.annotation.OperationLog;
 import org.max.authvs.api.dto.ResultDTO;
 import org.max.authvs.api.dto.auth.DeviceType;
 import org.max.authvs.api.dto.auth.in.LoginParam;
+import org.max.authvs.api.dto.auth.in.RefreshTokenParam;
 import org.max.authvs.api.dto.auth.out.LoginVo;
 import org.max.authvs.enums.OperationType;
 import org.max.authvs.security.CustomUserDetails;
@@ -53,6 +54,12 @@ public class AuthController {
         return ResultDTO.success(loginVo);
     }
 
+    @Operation(summary = "刷新令牌", description = "使用刷新令牌换取新的访问令牌。刷新令牌每次使用后轮换，旧令牌被重复使用时整个令牌族失效")
+    @PostMapping("/refresh")
+    public ResultDTO<LoginVo> refresh(@Valid @RequestBody RefreshTokenParam request) {
+        return ResultDTO.success(authService.handleRefresh(request.refreshToken()));
+    }
+
     @OperationLog(type = OperationType.LOGOUT, module = "认证", description = "用户登出")
     @Operation(summary = "用户登出", description = "登出并使当前令牌失效")
     @PostMapping("/logout")
@@ -66,4 +73,13 @@ public class AuthController {
         SecurityUtils.clearContext();
         return ResultDTO.success(null);
     }
+
+    @OperationLog(type = OperationType.LOGOUT, module = "认证", description = "登出所有设备")
+    @Operation(summary = "登出所有设备", description = "使当前用户在所有设备上的令牌全部失效")
+    @PostMapping("/logout-all")
+    public ResultDTO<Void> logoutAll() {
+        authService.handleLogoutAll(SecurityUtils.getCurrentUser());
+        SecurityUtils.clearContext();
+        return ResultDTO.success(null);
+    }
 }
\ No newline at end of file
@@ -6,6 +6,7 @@ import org.max.authvs.api.dto.ResultDTO;
 import org.max.authvs.config.I18nMessageService;
 import org.max.authvs.exception.InvalidTokenException;
 import org.max.authvs.exception.TokenRevokedException;
+import org.max.authvs.security.RedisCircuitBreaker;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.AuthenticationException;
@@ -65,6 +66,16 @@ public class GlobalExceptionHandler {
         return ResponseEntity.ok(ResultDTO.error(ResultDTO.FORBIDDEN, localizedMessage));
     }
 
+    /**
+     * Redis 熔断期间依赖 Redis 的操作（登录、刷新令牌等）直接失败，提示稍后重试，不打印完整请求
+     */
+    @ExceptionHandler(RedisCircuitBreaker.OpenException.class)
+    public ResponseEntity<ResultDTO<Void>> handleRedisUnavailable(RedisCircuitBreaker.OpenException ex, HttpServletRequest request) {
+        log.warn("Redis circuit breaker open, rejected {} {}", request.getMethod(), request.getRequestURI());
+        String localizedMessage = i18nMessageService.getMessage("exception.service.unavailable");
+        return ResponseEntity.ok(ResultDTO.error(ResultDTO.SERVICE_UNAVAILABLE, localizedMessage));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ResultDTO<Void>> handleGeneric(Exception ex, HttpServletRequest request) {
         logErrorWithRequest(ex, request);
@@ -0,0 +1,39 @@
+package org.max.authvs.api;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.max.authvs.api.dto.jwks.out.JwksVo;
+import org.max.authvs.security.JwtKeyRing;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWKS 公钥发布接口
+ * 资源服务通过该接口获取验签公钥，在本地校验 Token，无需回调认证服务
+ * 注意：按 RFC 7517 规范直接返回 JWK Set，不使用 ResultDTO 包装
+ */
+@Tag(name = "公钥发布", description = "JWT 验签公钥（JWKS）")
+@RestController
+public class JwksController {
+
+    // 需小于密钥发布延迟（authvs.jwt.key-publish-delay），保证新密钥启用前资源服务已刷新缓存
+    private static final long MAX_AGE_SECONDS = 300;
+
+    private final JwtKeyRing keyRing;
+
+    public JwksController(JwtKeyRing keyRing) {
+        this.keyRing = keyRing;
+    }
+
+    @Operation(summary = "获取 JWKS", description = "返回当前有效的 JWT 验签公钥集合（RFC 7517），可被资源服务缓存")
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<JwksVo> jwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(MAX_AGE_SECONDS, TimeUnit.SECONDS).cachePublic())
+                .body(new JwksVo(keyRing.publicJwks()));
+    }
+}
@@ -1,18 +1,22 @@
 package org.max.authvs.api;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import org.max.authvs.api.dto.ResultDTO;
 import org.max.authvs.api.dto.menu.out.MenuVo;
 import org.max.authvs.security.CustomUserDetails;
 import org.max.authvs.service.MenuService;
 import org.max.authvs.utils.SecurityUtils;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.List;
-
 /**
  * 菜单控制器
  */
@@ -29,14 +33,25 @@ public class MenuController {
 
     /**
      * 获取当前用户的菜单
+     * <p>
+     * 响应带强 ETag，请求头 If-None-Match 与之一致时返回 304，前端每次导航重新验证即可
      *
-     * @return 菜单树列表
+     * @return 菜单树列表（ResultDTO 包装）
      */
-    @Operation(summary = "获取用户菜单", description = "获取当前登录用户有权限访问的菜单")
+    @Operation(summary = "获取用户菜单", description = "获取当前登录用户有权限访问的菜单；支持 If-None-Match 条件请求")
+    @ApiResponse(responseCode = "200", description = "ResultDTO 包装的菜单树",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    array = @ArraySchema(schema = @Schema(implementation = MenuVo.class))))
+    @ApiResponse(responseCode = "304", description = "菜单未变化")
     @GetMapping("/user-menus")
-    public ResultDTO<List<MenuVo>> getUserMenus() {
+    public ResponseEntity<byte[]> getUserMenus() {
         CustomUserDetails userDetails = SecurityUtils.getCurrentUser();
-        List<MenuVo> menus = menuService.getUserMenus(userDetails.getId());
-        return ResultDTO.success(menus);
+        MenuService.RenderedMenus menus = menuService.getUserMenus(userDetails);
+        // GET 请求的 200 响应带 ETag 时，Spring MVC 会比较 If-None-Match，一致则只返回头部和 304
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(menus.etag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(menus.body());
     }
 }
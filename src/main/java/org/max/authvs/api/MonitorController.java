@@ -0,0 +1,52 @@
+package org.max.authvs.api;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.max.authvs.api.dto.ResultDTO;
+import org.max.authvs.api.dto.monitor.out.CacheStatsVo;
+import org.max.authvs.api.dto.monitor.out.OperationLogEndpointVo;
+import org.max.authvs.api.dto.monitor.out.OperationLogQueueVo;
+import org.max.authvs.service.MonitorService;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 运行监控接口
+ * 统计数据为当前节点的本地数据，多节点部署时需逐个节点查询
+ */
+@Tag(name = "运行监控", description = "缓存命中率、日志队列等运行指标")
+@RestController
+@RequestMapping("/api/monitor")
+public class MonitorController {
+
+    private final MonitorService monitorService;
+
+    public MonitorController(MonitorService monitorService) {
+        this.monitorService = monitorService;
+    }
+
+    @Operation(summary = "权限缓存统计", description = "返回当前节点权限缓存 L1（进程内）与 L2（Redis）的命中情况，需要基础配置权限")
+    @PreAuthorize("@accessChecker.perm('PERM_BASIC_CONFIG')")
+    @GetMapping("/permission-cache")
+    public ResultDTO<CacheStatsVo> getPermissionCacheStats() {
+        return ResultDTO.success(monitorService.getPermissionCacheStats());
+    }
+
+    @Operation(summary = "操作日志队列统计", description = "返回当前节点操作日志写入队列的深度、丢弃数和批量写入耗时，需要基础配置权限")
+    @PreAuthorize("@accessChecker.perm('PERM_BASIC_CONFIG')")
+    @GetMapping("/operation-log")
+    public ResultDTO<OperationLogQueueVo> getOperationLogQueueStats() {
+        return ResultDTO.success(monitorService.getOperationLogQueueStats());
+    }
+
+    @Operation(summary = "操作日志接口统计", description = "返回当前节点各接口的调用数、日志记录数以及采样、限流跳过的次数，需要基础配置权限")
+    @PreAuthorize("@accessChecker.perm('PERM_BASIC_CONFIG')")
+    @GetMapping("/operation-log/endpoints")
+    public ResultDTO<List<OperationLogEndpointVo>> getOperationLogEndpointStats() {
+        return ResultDTO.success(monitorService.getOperationLogEndpointStats());
+    }
+}
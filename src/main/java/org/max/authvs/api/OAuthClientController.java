@@ -11,6 +11,7 @@ import org.max.authvs.api.dto.client.in.ClientQueryParam;
 import org.max.authvs.api.dto.client.in.ClientSaveParam;
 import org.max.authvs.api.dto.client.out.ClientSecretResetVo;
 import org.max.authvs.api.dto.client.out.ClientVo;
+import org.max.authvs.enums.OperationLogLevel;
 import org.max.authvs.enums.OperationType;
 import org.max.authvs.service.OAuthClientService;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -30,7 +31,8 @@ public class OAuthClientController {
         this.clientService = clientService;
     }
 
-    @OperationLog(type = OperationType.QUERY, module = "认证管理", description = "分页查询客户端列表")
+    @OperationLog(type = OperationType.QUERY, module = "认证管理", description = "分页查询客户端列表",
+            level = OperationLogLevel.PARAMS, sampleRate = 0.1)
     @Operation(summary = "分页查询客户端列表", description = "查询OIDC客户端列表，支持按客户端名称、客户端ID、类型、状态等条件查询")
     @PreAuthorize("@accessChecker.perm('PERM_CLIENT_LIST')")
     @PostMapping("/page")
@@ -43,7 +45,8 @@ public class OAuthClientController {
         return ResultDTO.success(pageVo);
     }
 
-    @OperationLog(type = OperationType.QUERY, module = "认证管理", description = "查询客户端详情")
+    @OperationLog(type = OperationType.QUERY, module = "认证管理", description = "查询客户端详情",
+            maxPerUserPerMinute = 30)
     @Operation(summary = "获取客户端详细信息", description = "根据客户端ID查询客户端详细信息（密钥脱敏显示）")
     @PreAuthorize("@accessChecker.perm('PERM_CLIENT_LIST')")
     @GetMapping("/{id}")
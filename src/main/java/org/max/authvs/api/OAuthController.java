@@ -0,0 +1,83 @@
+package org.max.authvs.api;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.max.authvs.api.dto.oauth.out.IntrospectionVo;
+import org.max.authvs.service.TokenIntrospectionService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * OAuth 2.0 协议接口
+ * 注意：按 RFC 7662 规范直接返回内省结果，不使用 ResultDTO 包装
+ */
+@Tag(name = "OAuth 协议", description = "OAuth 2.0 标准协议接口")
+@RestController
+@RequestMapping("/api/oauth")
+public class OAuthController {
+
+    private final TokenIntrospectionService introspectionService;
+
+    public OAuthController(TokenIntrospectionService introspectionService) {
+        this.introspectionService = introspectionService;
+    }
+
+    @Operation(summary = "Token 内省", description = "校验访问令牌并返回其状态、用户与权限（RFC 7662）。" +
+            "调用方使用 oauth_clients 中的客户端凭证认证：HTTP Basic 或表单参数 client_id/client_secret")
+    @PostMapping(value = "/introspect", consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+    public ResponseEntity<IntrospectionVo> introspect(
+            HttpServletRequest request,
+            @Parameter(description = "待校验的访问令牌") @RequestParam("token") String token,
+            @Parameter(description = "令牌类型提示，仅支持 access_token") @RequestParam(value = "token_type_hint", required = false) String tokenTypeHint,
+            @Parameter(description = "客户端ID（未使用 HTTP Basic 时）") @RequestParam(value = "client_id", required = false) String clientId,
+            @Parameter(description = "客户端密钥（未使用 HTTP Basic 时）") @RequestParam(value = "client_secret", required = false) String clientSecret) {
+        String[] credentials = basicCredentials(request.getHeader(HttpHeaders.AUTHORIZATION));
+        if (credentials != null) {
+            clientId = credentials[0];
+            clientSecret = credentials[1];
+        }
+        if (!introspectionService.authenticateClient(clientId, clientSecret, request.getRemoteAddr())) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .header(HttpHeaders.WWW_AUTHENTICATE, "Basic realm=\"authvs\"")
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(introspectionService.introspect(token));
+    }
+
+    /**
+     * 解析 HTTP Basic 客户端凭证，client_id 和 client_secret 按 RFC 6749 2.3.1 先做表单编码
+     */
+    private static String[] basicCredentials(String authHeader) {
+        if (authHeader == null || !authHeader.regionMatches(true, 0, "Basic ", 0, 6)) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getDecoder().decode(authHeader.substring(6).trim()), StandardCharsets.UTF_8);
+            int sep = decoded.indexOf(':');
+            if (sep < 0) {
+                return null;
+            }
+            return new String[]{
+                    URLDecoder.decode(decoded.substring(0, sep), StandardCharsets.UTF_8),
+                    URLDecoder.decode(decoded.substring(sep + 1), StandardCharsets.UTF_8)
+            };
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
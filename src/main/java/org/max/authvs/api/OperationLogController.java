@@ -8,6 +8,7 @@ import org.max.authvs.api.dto.PageVo;
 import org.max.authvs.api.dto.ResultDTO;
 import org.max.authvs.api.dto.log.OperationLogQueryParam;
 import org.max.authvs.api.dto.log.out.OperationLogVo;
+import org.max.authvs.enums.OperationLogLevel;
 import org.max.authvs.enums.OperationType;
 import org.max.authvs.service.OperationLogService;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -27,7 +28,8 @@ public class OperationLogController {
         this.operationLogService = operationLogService;
     }
 
-    @OperationLog(type = OperationType.QUERY, module = "审计管理", description = "分页查询审计日志")
+    @OperationLog(type = OperationType.QUERY, module = "审计管理", description = "分页查询审计日志",
+            level = OperationLogLevel.PARAMS, sampleRate = 0.1)
     @Operation(summary = "分页查询审计日志", description = "支持多条件查询（用户名、操作类型、模块、状态、平台类型等），可通过platformType参数区分后台管理和门户日志，需要审计列表权限")
     @PreAuthorize("@accessChecker.perm('PERM_AUDIT_LIST')")
     @PostMapping("/page")
@@ -42,7 +44,8 @@ public class OperationLogController {
         return ResultDTO.success(pageVo);
     }
 
-    @OperationLog(type = OperationType.QUERY, module = "审计管理", description = "查询审计日志详情")
+    @OperationLog(type = OperationType.QUERY, module = "审计管理", description = "查询审计日志详情",
+            maxPerUserPerMinute = 30)
     @Operation(summary = "查询审计日志详情", description = "根据ID查询日志详情，需要审计列表权限")
     @PreAuthorize("@accessChecker.perm('PERM_AUDIT_LIST')")
     @GetMapping("/{id}")
@@ -6,6 +6,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import org.max.authvs.annotation.OperationLog;
 import org.max.authvs.api.dto.ResultDTO;
 import org.max.authvs.api.dto.user.out.UserVo;
+import org.max.authvs.enums.OperationLogLevel;
 import org.max.authvs.enums.OperationType;
 import org.max.authvs.security.CustomUserDetails;
 import org.max.authvs.utils.SecurityUtils;
@@ -24,7 +25,8 @@ public class PublicController {
     public PublicController() {
     }
 
-    @OperationLog(type = OperationType.QUERY, module = "用户管理", description = "查询当前用户信息")
+    @OperationLog(type = OperationType.QUERY, module = "用户管理", description = "查询当前用户信息",
+            level = OperationLogLevel.METADATA, sampleRate = 0.05)
     @Operation(summary = "获取当前用户", description = "获取当前认证用户的个人信息")
     @GetMapping("/me")
     public ResultDTO<UserVo> me() {
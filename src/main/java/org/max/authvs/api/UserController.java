@@ -9,6 +9,7 @@ import org.max.authvs.api.dto.ResultDTO;
 import org.max.authvs.api.dto.user.in.UserQueryParam;
 import org.max.authvs.api.dto.user.out.UserDetailVo;
 import org.max.authvs.api.dto.user.out.UserListVo;
+import org.max.authvs.enums.OperationLogLevel;
 import org.max.authvs.enums.OperationType;
 import org.max.authvs.service.UserService;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -25,7 +26,8 @@ public class UserController {
         this.userService = userService;
     }
 
-    @OperationLog(type = OperationType.QUERY, module = "用户管理", description = "分页查询普通用户列表")
+    @OperationLog(type = OperationType.QUERY, module = "用户管理", description = "分页查询普通用户列表",
+            level = OperationLogLevel.PARAMS, sampleRate = 0.1)
     @Operation(summary = "分页查询普通用户列表", description = "查询门户普通用户列表，支持按用户名、邮箱、手机号等条件查询，需要用户列表权限")
     @PreAuthorize("@accessChecker.perm('PERM_USER_LIST')")
     @PostMapping("/page")
@@ -38,7 +40,8 @@ public class UserController {
         return ResultDTO.success(pageVo);
     }
 
-    @OperationLog(type = OperationType.QUERY, module = "用户管理", description = "查询用户详情")
+    @OperationLog(type = OperationType.QUERY, module = "用户管理", description = "查询用户详情",
+            maxPerUserPerMinute = 30)
     @Operation(summary = "获取用户详细信息", description = "根据用户ID查询用户详细信息（包含角色和权限），需要用户列表权限")
     @PreAuthorize("@accessChecker.perm('PERM_USER_LIST')")
     @GetMapping("/{userId}/detail")
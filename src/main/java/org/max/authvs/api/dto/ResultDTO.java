@@ -18,6 +18,7 @@ public record ResultDTO<T>(
     public static final int UNAUTHORIZED = 401;      // 认证错误
     public static final int FORBIDDEN = 403;         // 权限错误
     public static final int SERVER_ERROR = 500;      // 系统错误
+    public static final int SERVICE_UNAVAILABLE = 503; // 依赖暂不可用
 
     public static <T> ResultDTO<T> success(T data) {
         return new ResultDTO<>(SUCCESS, "success", data);
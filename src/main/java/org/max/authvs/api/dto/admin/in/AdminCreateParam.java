@@ -7,6 +7,7 @@ import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
+import org.max.authvs.annotation.Sensitive;
 
 import java.util.List;
 
@@ -22,6 +23,7 @@ public class AdminCreateParam {
     @NotBlank(message = "密码不能为空")
     @Size(min = 6, max = 255, message = "密码长度必须在6-255字符之间")
     @Schema(description = "登录密码", requiredMode = Schema.RequiredMode.REQUIRED, example = "admin@123456")
+    @Sensitive
     private String password;
 
     @Email(message = "邮箱格式不正确")
@@ -6,6 +6,7 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
+import org.max.authvs.annotation.Sensitive;
 
 import java.util.List;
 
@@ -30,6 +31,7 @@ public class AdminUpdateParam {
 
     @Size(min = 6, max = 255, message = "密码长度必须在6-255字符之间")
     @Schema(description = "新密码（可选，不修改时留空）", example = "newpasswd@123456")
+    @Sensitive
     private String password;
 
     @Schema(description = "分配的角色ID列表（可选，不修改时留空）", example = "[2, 3]")
@@ -0,0 +1,12 @@
+package org.max.authvs.api.dto.auth.in;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import org.max.authvs.annotation.Sensitive;
+
+@Schema(description = "刷新令牌请求")
+public record RefreshTokenParam(
+        @Schema(description = "登录或上次刷新时返回的刷新令牌")
+        @Sensitive @NotBlank(message = "refreshToken is required") String refreshToken
+) {
+}
@@ -4,8 +4,12 @@ import io.swagger.v3.oas.annotations.media.Schema;
 
 @Schema(description = "登录响应")
 public record LoginVo(
-        @Schema(description = "JWT 令牌")
+        @Schema(description = "JWT 访问令牌")
         String token,
+        @Schema(description = "刷新令牌，访问令牌过期后用于换取新令牌，每次刷新后轮换")
+        String refreshToken,
+        @Schema(description = "访问令牌有效期（秒）", example = "300")
+        long expiresIn,
         @Schema(description = "响应信息")
         String message
 ) {
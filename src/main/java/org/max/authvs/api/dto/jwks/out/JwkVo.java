@@ -0,0 +1,31 @@
+package org.max.authvs.api.dto.jwks.out;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * 单个 JSON Web Key（RFC 7517），仅包含公钥部分
+ */
+@Schema(description = "JSON Web Key（公钥）")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record JwkVo(
+        @Schema(description = "密钥类型：RSA / EC", example = "RSA")
+        String kty,
+        @Schema(description = "密钥ID，与 JWT 头部的 kid 对应")
+        String kid,
+        @Schema(description = "用途", example = "sig")
+        String use,
+        @Schema(description = "签名算法", example = "RS256")
+        String alg,
+        @Schema(description = "RSA 模数（Base64URL）")
+        String n,
+        @Schema(description = "RSA 公钥指数（Base64URL）")
+        String e,
+        @Schema(description = "EC 曲线", example = "P-256")
+        String crv,
+        @Schema(description = "EC 公钥 X 坐标（Base64URL）")
+        String x,
+        @Schema(description = "EC 公钥 Y 坐标（Base64URL）")
+        String y
+) {
+}
@@ -0,0 +1,15 @@
+package org.max.authvs.api.dto.jwks.out;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * JSON Web Key Set（RFC 7517），供资源服务本地验签
+ */
+@Schema(description = "JSON Web Key Set")
+public record JwksVo(
+        @Schema(description = "当前可用于验签的公钥列表")
+        List<JwkVo> keys
+) {
+}
@@ -0,0 +1,28 @@
+package org.max.authvs.api.dto.monitor.out;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "权限缓存命中统计（当前节点，自启动起累计）")
+public record CacheStatsVo(
+        @Schema(description = "L1（进程内）当前条目数")
+        long localSize,
+        @Schema(description = "L1 命中次数")
+        long localHits,
+        @Schema(description = "L1 未命中次数")
+        long localMisses,
+        @Schema(description = "L1 命中率", example = "0.98")
+        double localHitRate,
+        @Schema(description = "L1 因容量或过期被淘汰的条目数")
+        long localEvictions,
+        @Schema(description = "L2（Redis）命中次数，仅统计 L1 未命中的请求")
+        long redisHits,
+        @Schema(description = "L2 未命中次数（需查询数据库）")
+        long redisMisses,
+        @Schema(description = "L2 命中率", example = "0.9")
+        double redisHitRate,
+        @Schema(description = "Redis 熔断器是否打开（打开期间只使用 L1）")
+        boolean redisCircuitOpen,
+        @Schema(description = "熔断期间未访问 Redis、直接降级的调用次数")
+        long redisShortCircuited
+) {
+}
@@ -0,0 +1,30 @@
+package org.max.authvs.api.dto.monitor.out;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "接口操作日志统计（当前节点，自启动起累计）")
+public record OperationLogEndpointVo(
+        @Schema(description = "接口（类名.方法名）", example = "PublicController.me")
+        String endpoint,
+        @Schema(description = "操作模块")
+        String module,
+        @Schema(description = "操作描述")
+        String description,
+        @Schema(description = "操作类型")
+        String operationType,
+        @Schema(description = "记录级别：METADATA / PARAMS / FULL")
+        String level,
+        @Schema(description = "采样比例", example = "0.1")
+        double sampleRate,
+        @Schema(description = "调用次数")
+        long calls,
+        @Schema(description = "写入日志的次数（含强制记录的失败调用）")
+        long recorded,
+        @Schema(description = "未被采样、只计数的次数")
+        long sampledOut,
+        @Schema(description = "超过每分钟上限、只计数的次数")
+        long rateLimited,
+        @Schema(description = "执行失败的次数")
+        long failed
+) {
+}
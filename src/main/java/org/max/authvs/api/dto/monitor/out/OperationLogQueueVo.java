@@ -0,0 +1,36 @@
+package org.max.authvs.api.dto.monitor.out;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "操作日志写入队列统计（当前节点，自启动起累计）")
+public record OperationLogQueueVo(
+        @Schema(description = "待写入数据库的日志数（内存队列或日志文件中）")
+        long queueSize,
+        @Schema(description = "内存队列容量（使用日志文件时只容纳等待序列化返回结果的日志）")
+        int queueCapacity,
+        @Schema(description = "是否先写入本地日志文件")
+        boolean journalEnabled,
+        @Schema(description = "日志文件中未写入数据库的数据大小（字节）")
+        long journalBytes,
+        @Schema(description = "日志文件大小上限（字节），达到后新日志被丢弃")
+        long journalMaxBytes,
+        @Schema(description = "日志文件中 CRC 校验失败或无法解码而被跳过的记录数，非 0 时需检查磁盘或版本兼容性")
+        long journalCorruptRecords,
+        @Schema(description = "已放入队列的日志数")
+        long enqueued,
+        @Schema(description = "队列满、日志文件达到上限或写入器停止后被丢弃的日志数")
+        long dropped,
+        @Schema(description = "已写入数据库的日志数")
+        long written,
+        @Schema(description = "写入数据库失败的日志数")
+        long failed,
+        @Schema(description = "批量写入次数")
+        long flushes,
+        @Schema(description = "平均每批写入耗时（毫秒）", example = "3.2")
+        double avgFlushMillis,
+        @Schema(description = "最近一批写入耗时（毫秒）")
+        double lastFlushMillis,
+        @Schema(description = "最大一批写入耗时（毫秒）")
+        double maxFlushMillis
+) {
+}
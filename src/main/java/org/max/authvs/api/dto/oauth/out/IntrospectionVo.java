@@ -0,0 +1,46 @@
+package org.max.authvs.api.dto.oauth.out;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * Token 内省结果（RFC 7662）
+ * 令牌无效时只返回 {"active": false}，不暴露任何其他信息
+ */
+@Schema(description = "Token 内省结果")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record IntrospectionVo(
+        @Schema(description = "令牌当前是否有效")
+        boolean active,
+        @Schema(description = "令牌主体（用户名）", example = "admin")
+        String sub,
+        @Schema(description = "用户名", example = "admin")
+        String username,
+        @Schema(description = "用户ID", example = "1")
+        @JsonProperty("user_id")
+        Long userId,
+        @Schema(description = "设备类型编码", example = "web")
+        @JsonProperty("device_type")
+        String deviceType,
+        @Schema(description = "令牌类型", example = "Bearer")
+        @JsonProperty("token_type")
+        String tokenType,
+        @Schema(description = "过期时间（Unix 秒）")
+        Long exp,
+        @Schema(description = "签发时间（Unix 秒）")
+        Long iat,
+        @Schema(description = "令牌唯一标识")
+        String jti,
+        @Schema(description = "用户权限（ROLE_* / PERM_*）")
+        List<String> authorities
+) {
+
+    private static final IntrospectionVo INACTIVE = new IntrospectionVo(false, null, null, null, null, null, null, null, null, null);
+
+    public static IntrospectionVo inactive() {
+        return INACTIVE;
+    }
+}
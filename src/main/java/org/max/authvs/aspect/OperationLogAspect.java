@@ -1,7 +1,6 @@
 package org.max.authvs.aspect;
 
 import cn.hutool.core.util.StrUtil;
-import cn.hutool.json.JSONUtil;
 import jakarta.servlet.ServletRequest;
 import jakarta.servlet.ServletResponse;
 import jakarta.servlet.http.HttpServletRequest;
@@ -11,98 +10,105 @@ import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.max.authvs.annotation.OperationLog;
+import org.max.authvs.enums.OperationLogLevel;
 import org.max.authvs.security.CustomUserDetails;
+import org.max.authvs.service.OperationLogSampler;
+import org.max.authvs.service.OperationLogSampler.Decision;
 import org.max.authvs.service.OperationLogService;
+import org.max.authvs.utils.BoundedJsonWriter;
 import org.max.authvs.utils.IpUtils;
 import org.max.authvs.utils.SecurityUtils;
-import org.max.authvs.utils.SensitiveDataUtils;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Controller;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.lang.reflect.Method;
 import java.time.LocalDateTime;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
 
 /**
  * 操作日志切面
+ * <p>
+ * 启动时扫描控制器上的 {@link OperationLog} 方法，预先解析日志元数据并校验采样配置，配置错误时启动失败
  */
 @Slf4j
 @Aspect
 @Component
-public class OperationLogAspect {
+public class OperationLogAspect implements SmartInitializingSingleton {
 
     private final OperationLogService operationLogService;
+    private final OperationLogSampler operationLogSampler;
+    private final ListableBeanFactory beanFactory;
+    // 方法 -> 日志元数据
+    private final ConcurrentHashMap<Method, Descriptor> descriptors = new ConcurrentHashMap<>();
 
     // 请求参数最大长度
     private static final int MAX_PARAM_LENGTH = 2000;
 
-    public OperationLogAspect(OperationLogService operationLogService) {
+    public OperationLogAspect(OperationLogService operationLogService, OperationLogSampler operationLogSampler,
+                              ListableBeanFactory beanFactory) {
         this.operationLogService = operationLogService;
+        this.operationLogSampler = operationLogSampler;
+        this.beanFactory = beanFactory;
+    }
+
+    /**
+     * 预先解析所有控制器方法的日志元数据；注解参数非法时抛出 IllegalArgumentException，启动失败
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (String beanName : beanFactory.getBeanNamesForAnnotation(Controller.class)) {
+            Class<?> type = beanFactory.getType(beanName);
+            if (type == null) {
+                continue;
+            }
+            MethodIntrospector.selectMethods(ClassUtils.getUserClass(type),
+                            (MethodIntrospector.MetadataLookup<OperationLog>) m -> m.getAnnotation(OperationLog.class))
+                    .keySet()
+                    .forEach(method -> descriptors.computeIfAbsent(method, this::describe));
+        }
+        log.info("Prepared operation log metadata for {} methods", descriptors.size());
     }
 
     @Around("@annotation(org.max.authvs.annotation.OperationLog)")
     public Object around(ProceedingJoinPoint joinPoint) throws Throwable {
         long startTime = System.currentTimeMillis();
 
-        org.max.authvs.entity.OperationLog operationLog = new org.max.authvs.entity.OperationLog();
-
-        // 获取请求信息
-        HttpServletRequest request = getRequest();
-        if (request != null) {
-            operationLog.setRequestMethod(request.getMethod());
-            operationLog.setRequestUrl(request.getRequestURI());
-            operationLog.setIpAddress(IpUtils.getRealIp(request));
-            operationLog.setUserAgent(request.getHeader("User-Agent"));
-            // 从请求属性中获取登录时设置的用户信息（登录阶段SecurityContext尚未建立）
-            Object uidAttr = request.getAttribute("OP_USER_ID");
-            Object unameAttr = request.getAttribute("OP_USERNAME");
-            if (uidAttr instanceof Long uid) {
-                operationLog.setUserId(uid);
-            }
-            if (unameAttr instanceof String uname) {
-                operationLog.setUsername(uname);
-            }
-        }
-
-        // 获取用户信息
-        try {
-            if (SecurityUtils.isAuthenticated()) {
-                CustomUserDetails currentUser = SecurityUtils.getCurrentUser();
-                operationLog.setUserId(currentUser.getId());
-                operationLog.setUsername(currentUser.getUsername());
-            }
-        } catch (Exception e) {
-            // 匿名访问，不记录用户信息
+        // 获取注解信息（启动时已解析，非控制器方法在首次调用时解析）
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Descriptor descriptor = descriptors.get(method);
+        if (descriptor == null) {
+            descriptor = descriptors.computeIfAbsent(method, this::describe);
         }
 
-        // 获取注解信息
-        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
-        Method method = signature.getMethod();
-        OperationLog annotation = method.getAnnotation(OperationLog.class);
-
-        operationLog.setOperationType(annotation.type().name());
-        operationLog.setOperationModule(annotation.module());
-        operationLog.setOperationDesc(annotation.description());
-
-        // 根据请求URL判断平台类型
-        if (operationLog.getRequestUrl() != null) {
-            if (operationLog.getRequestUrl().startsWith("/api/admin") || 
-                operationLog.getRequestUrl().startsWith("/api/admins") ||
-                operationLog.getRequestUrl().startsWith("/api/operation-logs")) {
-                operationLog.setPlatformType(2); // 后台管理
-            } else {
-                operationLog.setPlatformType(1); // 门户
+        Decision decision = operationLogSampler.decide(descriptor.endpoint(),
+                descriptor.endpoint().isUserCapped() ? getCurrentUserId() : null);
+        if (decision != Decision.RECORD) {
+            // 未被采样或超过上限：只计数不记录；执行失败时仍完整记录
+            try {
+                return joinPoint.proceed();
+            } catch (Throwable e) {
+                operationLogSampler.recordFailure(descriptor.endpoint(), decision);
+                org.max.authvs.entity.OperationLog operationLog = createLog(joinPoint, descriptor,
+                        getRequest(joinPoint, descriptor));
+                operationLog.setStatus("FAIL");
+                operationLog.setErrorMessage(StrUtil.maxLength(e.getMessage(), 500));
+                saveLog(operationLog, startTime);
+                throw e;
             }
-        } else {
-            operationLog.setPlatformType(1); // 默认为门户
         }
 
-        // 记录请求参数
-        if (annotation.recordParams()) {
-            String params = getRequestParams(joinPoint);
-            operationLog.setRequestParams(StrUtil.maxLength(params, MAX_PARAM_LENGTH));
-        }
+        HttpServletRequest request = getRequest(joinPoint, descriptor);
+        org.max.authvs.entity.OperationLog operationLog = createLog(joinPoint, descriptor, request);
 
         Object result;
         try {
@@ -111,10 +117,9 @@ public class OperationLogAspect {
 
             operationLog.setStatus("SUCCESS");
 
-            // 记录返回结果
-            if (annotation.recordResult() && result != null) {
-                String resultStr = JSONUtil.toJsonStr(result);
-                operationLog.setResponseResult(StrUtil.maxLength(resultStr, MAX_PARAM_LENGTH));
+            // 记录返回结果：只保存引用，由写入线程序列化，不占用请求线程
+            if (descriptor.recordResult() && result != null) {
+                operationLog.setResponseSnapshot(result);
             }
             // 若登录过程中未能获取用户信息，尝试在方法执行后从请求属性或安全上下文填充
             if ((operationLog.getUserId() == null || operationLog.getUsername() == null) && request != null) {
@@ -140,57 +145,207 @@ public class OperationLogAspect {
 
             return result;
         } catch (Throwable e) {
+            operationLogSampler.recordFailure(descriptor.endpoint(), decision);
             operationLog.setStatus("FAIL");
             operationLog.setErrorMessage(StrUtil.maxLength(e.getMessage(), 500));
             throw e;
         } finally {
-            // 计算执行时长
-            long executeTime = System.currentTimeMillis() - startTime;
-            operationLog.setExecuteTime(executeTime);
-            operationLog.setCreatedAt(LocalDateTime.now());
+            saveLog(operationLog, startTime);
+        }
+    }
+
+    /**
+     * 创建日志：请求信息、用户信息、注解信息，以及记录级别允许时的请求参数
+     */
+    private org.max.authvs.entity.OperationLog createLog(ProceedingJoinPoint joinPoint, Descriptor descriptor,
+                                                         HttpServletRequest request) {
+        org.max.authvs.entity.OperationLog operationLog = new org.max.authvs.entity.OperationLog();
 
-            // 异步保存日志
-            operationLogService.saveLog(operationLog);
+        // 获取请求信息
+        if (request != null) {
+            operationLog.setRequestMethod(request.getMethod());
+            operationLog.setRequestUrl(request.getRequestURI());
+            operationLog.setIpAddress(IpUtils.getRealIp(request));
+            operationLog.setUserAgent(request.getHeader("User-Agent"));
+            // 从请求属性中获取登录时设置的用户信息（登录阶段SecurityContext尚未建立）
+            Object uidAttr = request.getAttribute("OP_USER_ID");
+            Object unameAttr = request.getAttribute("OP_USERNAME");
+            if (uidAttr instanceof Long uid) {
+                operationLog.setUserId(uid);
+            }
+            if (unameAttr instanceof String uname) {
+                operationLog.setUsername(uname);
+            }
         }
+
+        // 获取用户信息
+        try {
+            if (SecurityUtils.isAuthenticated()) {
+                CustomUserDetails currentUser = SecurityUtils.getCurrentUser();
+                operationLog.setUserId(currentUser.getId());
+                operationLog.setUsername(currentUser.getUsername());
+            }
+        } catch (Exception e) {
+            // 匿名访问，不记录用户信息
+        }
+
+        operationLog.setOperationType(descriptor.operationType());
+        operationLog.setOperationModule(descriptor.module());
+        operationLog.setOperationDesc(descriptor.description());
+        // 平台类型：由映射路径预先确定，无法确定时按请求URL判断
+        operationLog.setPlatformType(descriptor.platformType() != null
+                ? descriptor.platformType() : platformType(operationLog.getRequestUrl()));
+
+        // 记录请求参数
+        if (descriptor.recordParams()) {
+            operationLog.setRequestParams(getRequestParams(joinPoint, descriptor));
+        }
+        return operationLog;
     }
 
     /**
-     * 获取请求参数
+     * 计算执行时长并提交写入
      */
-    private String getRequestParams(ProceedingJoinPoint joinPoint) {
-        Object[] args = joinPoint.getArgs();
-        if (args == null || args.length == 0) {
+    private void saveLog(org.max.authvs.entity.OperationLog operationLog, long startTime) {
+        long executeTime = System.currentTimeMillis() - startTime;
+        operationLog.setExecuteTime(executeTime);
+        operationLog.setCreatedAt(LocalDateTime.now());
+
+        // 异步保存日志
+        operationLogService.saveLog(operationLog);
+    }
+
+    /**
+     * 当前登录用户ID，用于按用户限流；未登录时返回 null
+     */
+    private Long getCurrentUserId() {
+        try {
+            return SecurityUtils.isAuthenticated() ? SecurityUtils.getCurrentUser().getId() : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 获取请求参数：各参数序列化为 JSON 后以空格分隔，写入时脱敏，超过 MAX_PARAM_LENGTH 即停止
+     */
+    private String getRequestParams(ProceedingJoinPoint joinPoint, Descriptor descriptor) {
+        int[] paramIndexes = descriptor.paramIndexes();
+        if (paramIndexes.length == 0) {
             return "";
         }
 
-        // 过滤掉ServletRequest、ServletResponse、MultipartFile等对象
-        StringBuilder params = new StringBuilder();
-        for (Object arg : args) {
-            if (arg == null) {
+        Object[] args = joinPoint.getArgs();
+        BoundedJsonWriter params = new BoundedJsonWriter(MAX_PARAM_LENGTH);
+        for (int index : paramIndexes) {
+            Object arg = args[index];
+            // 声明类型无法排除时（如 Object），按实际类型过滤
+            if (arg == null || isExcludedArg(arg)) {
                 continue;
             }
 
-            // 使用 instanceof 过滤不需要序列化的对象
-            if (arg instanceof ServletRequest ||
-                    arg instanceof ServletResponse ||
-                    arg instanceof MultipartFile) {
-                continue;
+            if (!params.isEmpty()) {
+                params.separator(' ');
             }
-
-            String argStr = JSONUtil.toJsonStr(arg);
-            // 脱敏处理
-            argStr = SensitiveDataUtils.maskPasswordInJson(argStr);
-            params.append(argStr).append(" ");
+            params.value(arg);
         }
 
-        return params.toString().trim();
+        return params.toString();
     }
 
     /**
-     * 获取HttpServletRequest
+     * 获取HttpServletRequest：方法参数中有请求对象时直接使用，否则从 RequestContextHolder 获取
      */
-    private HttpServletRequest getRequest() {
+    private HttpServletRequest getRequest(ProceedingJoinPoint joinPoint, Descriptor descriptor) {
+        if (descriptor.requestIndex() >= 0
+                && joinPoint.getArgs()[descriptor.requestIndex()] instanceof HttpServletRequest request) {
+            return request;
+        }
         ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
         return attributes != null ? attributes.getRequest() : null;
     }
+
+    /**
+     * 解析方法的注解、平台类型和需要序列化的参数
+     */
+    private Descriptor describe(Method method) {
+        OperationLog annotation = method.getAnnotation(OperationLog.class);
+
+        // 过滤掉ServletRequest、ServletResponse、MultipartFile等对象
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        int[] paramIndexes = IntStream.range(0, parameterTypes.length)
+                .filter(i -> !isExcludedType(parameterTypes[i]))
+                .toArray();
+        int requestIndex = IntStream.range(0, parameterTypes.length)
+                .filter(i -> HttpServletRequest.class.isAssignableFrom(parameterTypes[i]))
+                .findFirst().orElse(-1);
+
+        boolean recordParams = annotation.recordParams() && annotation.level() != OperationLogLevel.METADATA;
+        boolean recordResult = annotation.recordResult() && annotation.level() == OperationLogLevel.FULL;
+        return new Descriptor(operationLogSampler.endpoint(method, annotation), annotation.type().name(),
+                annotation.module(), annotation.description(), mappedPlatformType(method),
+                recordParams, recordResult, recordParams ? paramIndexes : new int[0], requestIndex);
+    }
+
+    /**
+     * 由类和方法上的映射路径确定平台类型；没有映射或各路径平台不一致时返回 null
+     */
+    private static Integer mappedPlatformType(Method method) {
+        RequestMapping methodMapping = AnnotatedElementUtils.findMergedAnnotation(method, RequestMapping.class);
+        if (methodMapping == null) {
+            return null;
+        }
+        RequestMapping typeMapping = AnnotatedElementUtils.findMergedAnnotation(method.getDeclaringClass(),
+                RequestMapping.class);
+        String[] prefixes = typeMapping != null && typeMapping.path().length > 0 ? typeMapping.path() : new String[]{""};
+        String[] paths = methodMapping.path().length > 0 ? methodMapping.path() : new String[]{""};
+        Integer platformType = null;
+        for (String prefix : prefixes) {
+            for (String path : paths) {
+                int type = platformType(prefix + path);
+                if (platformType != null && platformType != type) {
+                    return null;
+                }
+                platformType = type;
+            }
+        }
+        return platformType;
+    }
+
+    /**
+     * 根据请求URL判断平台类型
+     */
+    private static int platformType(String url) {
+        if (url == null) {
+            return 1; // 默认为门户
+        }
+        if (url.startsWith("/api/admin") ||
+            url.startsWith("/api/admins") ||
+            url.startsWith("/api/operation-logs")) {
+            return 2; // 后台管理
+        }
+        return 1; // 门户
+    }
+
+    private static boolean isExcludedType(Class<?> type) {
+        return ServletRequest.class.isAssignableFrom(type)
+                || ServletResponse.class.isAssignableFrom(type)
+                || MultipartFile.class.isAssignableFrom(type);
+    }
+
+    private static boolean isExcludedArg(Object arg) {
+        return arg instanceof ServletRequest || arg instanceof ServletResponse || arg instanceof MultipartFile;
+    }
+
+    /**
+     * 方法的日志元数据：启动时解析，之后每次调用只读取字段
+     *
+     * @param platformType 由映射路径确定的平台类型，null 表示按请求URL判断
+     * @param paramIndexes 需要序列化的参数下标（已排除请求、响应、上传文件）
+     * @param requestIndex HttpServletRequest 参数的下标，-1 表示没有
+     */
+    private record Descriptor(OperationLogSampler.Endpoint endpoint, String operationType, String module,
+                              String description, Integer platformType, boolean recordParams,
+                              boolean recordResult, int[] paramIndexes, int requestIndex) {
+    }
 }
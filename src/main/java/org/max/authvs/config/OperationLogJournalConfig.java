@@ -0,0 +1,29 @@
+package org.max.authvs.config;
+
+import org.max.authvs.service.OperationLogJournal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * 操作日志本地日志文件配置
+ * 配置了 authvs.operation-log.journal.dir 时启用，操作日志先写入该目录再批量写入数据库；
+ * 多个实例不能共用同一目录（打开时对目录加锁，已被占用则启动失败）
+ */
+@Configuration
+public class OperationLogJournalConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnExpression("!'${authvs.operation-log.journal.dir:}'.isEmpty()")
+    public OperationLogJournal operationLogJournal(
+            @Value("${authvs.operation-log.journal.dir}") String dir,
+            @Value("${authvs.operation-log.journal.segment-size:64MB}") DataSize segmentSize,
+            @Value("${authvs.operation-log.journal.max-size:1GB}") DataSize maxSize) throws IOException {
+        return OperationLogJournal.open(Path.of(dir), Math.toIntExact(segmentSize.toBytes()), maxSize.toBytes());
+    }
+}
@@ -0,0 +1,68 @@
+package org.max.authvs.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.max.authvs.security.PermissionCacheService;
+import org.max.authvs.security.RevocationRegistry;
+import org.max.authvs.security.TokenEpochService;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis pub/sub 配置
+ * 集群内各节点通过 auth:events:* 频道同步本地缓存（撤销集合、用户 Token 纪元、权限 L1 缓存等）
+ * <p>
+ * 监听容器不随上下文自动启动：Redis 不可用时启动订阅会直接失败，导致应用无法启动。
+ * 改为应用就绪后在后台订阅，失败时定期重试；订阅成功后断线重连由容器自身负责。
+ */
+@Slf4j
+@Configuration
+public class RedisListenerConfig {
+
+    private RedisMessageListenerContainer container;
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       RevocationRegistry revocationRegistry,
+                                                                       TokenEpochService tokenEpochService,
+                                                                       PermissionCacheService permissionCacheService) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.setAutoStartup(false);
+        container.addMessageListener(revocationRegistry, new ChannelTopic(RevocationRegistry.CHANNEL));
+        container.addMessageListener(tokenEpochService, new ChannelTopic(TokenEpochService.CHANNEL));
+        container.addMessageListener(permissionCacheService, new ChannelTopic(PermissionCacheService.CHANNEL));
+        container.addMessageListener(permissionCacheService, new ChannelTopic(PermissionCacheService.ROLE_CHANNEL));
+        this.container = container;
+        return container;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void subscribeOnStartup() {
+        Thread.ofVirtual().name("redis-subscribe").start(this::ensureSubscribed);
+    }
+
+    /**
+     * 首次订阅失败时定期重试
+     */
+    @Scheduled(fixedDelay = 30, initialDelay = 30, timeUnit = TimeUnit.SECONDS)
+    public synchronized void ensureSubscribed() {
+        if (container == null || container.isRunning()) {
+            return;
+        }
+        try {
+            container.start();
+            log.info("Subscribed to Redis event channels");
+        } catch (RuntimeException e) {
+            container.stop();
+            log.warn("Redis unavailable, event channel subscription will be retried: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.max.authvs.config;
+
+import org.springframework.boot.task.ThreadPoolTaskSchedulerBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * 定时任务配置
+ * 用于密钥轮换、本地缓存同步等后台维护任务
+ * <p>
+ * - 默认调度器（taskScheduler）的线程数由 spring.task.scheduling.pool.size 配置，
+ *   Redis 不可用时阻塞在 Redis 调用上的任务不会互相拖延
+ * - Redis 熔断探测使用独立的单线程调度器，其他任务阻塞时仍按探测间隔执行
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+    public static final String REDIS_PROBE_SCHEDULER = "redisProbeScheduler";
+
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(ThreadPoolTaskSchedulerBuilder builder) {
+        return builder.build();
+    }
+
+    @Bean(REDIS_PROBE_SCHEDULER)
+    public ThreadPoolTaskScheduler redisProbeScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("redis-probe-");
+        return scheduler;
+    }
+}
@@ -100,4 +100,10 @@ public class OperationLog {
      */
     @TableField(fill = FieldFill.INSERT)
     private LocalDateTime createdAt;
+
+    /**
+     * 返回结果快照（不入库）：切面只保存返回值引用，由操作日志写入线程序列化为 responseResult
+     */
+    @TableField(exist = false)
+    private Object responseSnapshot;
 }
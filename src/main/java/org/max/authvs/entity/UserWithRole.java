@@ -0,0 +1,20 @@
+package org.max.authvs.entity;
+
+import lombok.Data;
+
+/**
+ * 用户与其角色关联的联表查询结果（非数据表实体）
+ * <p>
+ * 每行对应用户的一个角色，用户没有角色时 roleId 为空；角色和权限详情从 RBAC 快照中获取
+ */
+@Data
+public class UserWithRole {
+    private Long id;
+    private String username;
+    private String password;
+    private String email;
+    private String phone;
+    private Integer userType;
+    private Boolean enabled;
+    private Long roleId;
+}
@@ -0,0 +1,20 @@
+package org.max.authvs.enums;
+
+import lombok.Getter;
+
+/**
+ * 操作日志记录级别（记录内容的上限）
+ */
+@Getter
+public enum OperationLogLevel {
+    METADATA("只记录用户、请求地址、耗时和状态"),
+    PARAMS("另记录请求参数"),
+    FULL("另记录请求参数和返回结果");
+
+    private final String description;
+
+    OperationLogLevel(String description) {
+        this.description = description;
+    }
+
+}
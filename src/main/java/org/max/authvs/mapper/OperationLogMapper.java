@@ -1,12 +1,32 @@
 package org.max.authvs.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.max.authvs.entity.OperationLog;
 
+import java.util.List;
+
 /**
  * 操作日志 Mapper
  */
 @Mapper
 public interface OperationLogMapper extends BaseMapper<OperationLog> {
+
+    /**
+     * 多行插入（一条 INSERT ... VALUES (...), (...)），不回填主键，created_at 由调用方设置
+     */
+    @Insert({"<script>",
+            "INSERT INTO operation_log (user_id, username, operation_type, operation_module, operation_desc,",
+            " request_method, request_url, request_params, response_result, ip_address, device_type, user_agent,",
+            " platform_type, execute_time, status, error_message, created_at) VALUES",
+            "<foreach collection='logs' item='l' separator=','>",
+            "(#{l.userId}, #{l.username}, #{l.operationType}, #{l.operationModule}, #{l.operationDesc},",
+            " #{l.requestMethod}, #{l.requestUrl}, #{l.requestParams}, #{l.responseResult}, #{l.ipAddress},",
+            " #{l.deviceType}, #{l.userAgent}, #{l.platformType}, #{l.executeTime}, #{l.status},",
+            " #{l.errorMessage}, #{l.createdAt})",
+            "</foreach>",
+            "</script>"})
+    int insertBatch(@Param("logs") List<OperationLog> logs);
 }
@@ -0,0 +1,14 @@
+package org.max.authvs.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Select;
+
+/**
+ * RBAC 数据版本（rbac_version 表，roles / permissions / role_permissions 的触发器在每次变更时加一）
+ */
+@Mapper
+public interface RbacVersionMapper {
+
+    @Select("SELECT version FROM rbac_version WHERE id = 1")
+    Long selectVersion();
+}
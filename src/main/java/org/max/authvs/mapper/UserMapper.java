@@ -2,8 +2,34 @@ package org.max.authvs.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
 import org.max.authvs.entity.User;
+import org.max.authvs.entity.UserWithRole;
+
+import java.util.List;
 
 @Mapper
 public interface UserMapper extends BaseMapper<User> {
+
+    /**
+     * 用户及其角色ID（users LEFT JOIN user_roles），角色和权限详情从 RBAC 快照中获取
+     */
+    String WITH_ROLES_QUERY = """
+            SELECT u.id, u.username, u.password, u.email, u.phone, u.user_type, u.enabled, ur.role_id
+            FROM users u
+            LEFT JOIN user_roles ur ON ur.user_id = u.id
+            """;
+
+    /**
+     * 按用户名一次查询用户及其角色ID，用户不存在时返回空列表
+     */
+    @Select(WITH_ROLES_QUERY + "WHERE u.username = #{username}")
+    List<UserWithRole> selectWithRolesByUsername(@Param("username") String username);
+
+    /**
+     * 按用户ID一次查询用户及其角色ID，用户不存在时返回空列表
+     */
+    @Select(WITH_ROLES_QUERY + "WHERE u.id = #{userId}")
+    List<UserWithRole> selectWithRolesByUserId(@Param("userId") Long userId);
 }
@@ -1,6 +1,7 @@
 package org.max.authvs.security;
 
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
@@ -24,14 +25,18 @@ public class AccessChecker {
             return false;
         }
 
-        // 检查是否为超级管理员
-        if (authentication.getAuthorities().stream()
-                .anyMatch(auth -> "ROLE_SUPER_ADMIN".equals(auth.getAuthority()))) {
-            return true;
+        // 常规路径：主体是 CustomUserDetails，直接使用预先计算的超级管理员标记和权限位图
+        if (authentication.getPrincipal() instanceof CustomUserDetails details) {
+            return details.isSuperAdmin() || details.hasAuthority(permission);
         }
 
-        // 检查是否拥有指定权限
-        return authentication.getAuthorities().stream()
-                .anyMatch(auth -> permission.equals(auth.getAuthority()));
+        // 其他认证方式：遍历一次权限列表
+        for (GrantedAuthority auth : authentication.getAuthorities()) {
+            String authority = auth.getAuthority();
+            if (AuthorityIndex.SUPER_ADMIN.equals(authority) || permission.equals(authority)) {
+                return true;
+            }
+        }
+        return false;
     }
 }
@@ -0,0 +1,125 @@
+package org.max.authvs.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 全局权限字典：权限字符串（ROLE_* / PERM_*）与整数ID一一对应，集群共享
+ * <p>
+ * - Redis 中保存 auth:authority-dict:ids（权限 -> ID）和 auth:authority-dict:seq（ID 分配计数器）
+ * - ID 只分配不回收，因此字典只增不改，各节点本地缓存整份字典
+ * - 字典版本即已分配的 ID 数；权限快照记录编码时的字典版本，解码时本地版本落后则先重新加载
+ * - 解码快照时直接复用 {@link AuthorityIndex} 中的共享权限实例，不再为每个用户创建权限对象
+ */
+@Slf4j
+@Component
+public class AuthorityDictionary {
+
+    private static final String IDS_KEY = "auth:authority-dict:ids";
+    private static final String SEQ_KEY = "auth:authority-dict:seq";
+    // 重新加载的最小间隔，避免未知 ID 导致频繁访问 Redis
+    private static final long RELOAD_INTERVAL_MS = 1000;
+
+    private final StringRedisTemplate redisTemplate;
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile GrantedAuthority[] authorities = new GrantedAuthority[0];
+    private volatile long version;
+    private volatile long lastReloadAt;
+
+    public AuthorityDictionary(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * 获取权限对应的 ID，字典中不存在时注册
+     *
+     * @throws DataAccessException 需要注册但 Redis 不可用时抛出
+     */
+    public int idOf(String authority) {
+        Integer id = ids.get(authority);
+        return id != null ? id : register(authority);
+    }
+
+    /**
+     * 按 ID 获取共享的权限实例，本地字典不存在时返回 null
+     */
+    public GrantedAuthority authorityOf(int id) {
+        GrantedAuthority[] current = authorities;
+        return id >= 0 && id < current.length ? current[id] : null;
+    }
+
+    /**
+     * 本地字典版本（已知的 ID 数量）
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * 确保本地字典不低于指定版本，落后时从 Redis 重新加载
+     *
+     * @return 本地字典是否已达到该版本
+     */
+    public boolean ensureVersion(long required) {
+        if (version >= required) {
+            return true;
+        }
+        reload(false);
+        return version >= required;
+    }
+
+    private synchronized int register(String authority) {
+        Integer existing = ids.get(authority);
+        if (existing != null) {
+            return existing;
+        }
+        Object remote = redisTemplate.opsForHash().get(IDS_KEY, authority);
+        if (remote == null) {
+            Long seq = redisTemplate.opsForValue().increment(SEQ_KEY);
+            String candidate = String.valueOf(seq != null ? seq - 1 : 0);
+            Boolean added = redisTemplate.opsForHash().putIfAbsent(IDS_KEY, authority, candidate);
+            // 其他节点同时注册了同一权限时以先写入的为准，本次分配的 ID 留空
+            remote = Boolean.TRUE.equals(added) ? candidate : redisTemplate.opsForHash().get(IDS_KEY, authority);
+        }
+        int id = Integer.parseInt(String.valueOf(remote));
+        install(authority, id);
+        return id;
+    }
+
+    private synchronized void reload(boolean force) {
+        long now = System.currentTimeMillis();
+        if (!force && now - lastReloadAt < RELOAD_INTERVAL_MS) {
+            return;
+        }
+        lastReloadAt = now;
+        try {
+            Map<Object, Object> entries = redisTemplate.opsForHash().entries(IDS_KEY);
+            for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+                install(String.valueOf(entry.getKey()), Integer.parseInt(String.valueOf(entry.getValue())));
+            }
+            log.debug("Authority dictionary reloaded, version={}", version);
+        } catch (DataAccessException e) {
+            log.warn("Redis unavailable, authority dictionary not reloaded: {}", e.getMessage());
+        }
+    }
+
+    private synchronized void install(String authority, int id) {
+        ids.putIfAbsent(authority, id);
+        GrantedAuthority[] current = authorities;
+        if (id >= current.length) {
+            current = Arrays.copyOf(current, Math.max(id + 1, current.length * 2));
+        }
+        if (current[id] == null) {
+            current[id] = AuthorityIndex.authority(authority);
+        }
+        authorities = current;
+        version = Math.max(version, id + 1L);
+    }
+}
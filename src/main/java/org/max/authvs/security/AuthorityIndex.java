@@ -0,0 +1,64 @@
+package org.max.authvs.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 进程内权限索引：每个权限字符串对应一个从 0 开始的小整数，并且只保留一个 GrantedAuthority 实例（享元）
+ * <p>
+ * - {@link CustomUserDetails} 按该索引预先计算权限位图，{@link AccessChecker} 判断权限只需一次位运算
+ * - 索引只在本进程内有效，不写入任何缓存；跨节点共享的权限编号见 {@link AuthorityDictionary}
+ * - 启动时预先登记数据库中的全部角色和权限，之后出现的新权限在构建用户详情时按需登记
+ */
+public final class AuthorityIndex {
+
+    public static final String SUPER_ADMIN = "ROLE_SUPER_ADMIN";
+
+    private static final Map<String, Entry> ENTRIES = new ConcurrentHashMap<>();
+    private static final AtomicInteger NEXT_INDEX = new AtomicInteger();
+
+    static {
+        entry(SUPER_ADMIN);
+    }
+
+    private AuthorityIndex() {
+    }
+
+    /**
+     * 获取权限的共享实例，未登记时先登记
+     */
+    public static GrantedAuthority authority(String authority) {
+        return entry(authority).authority();
+    }
+
+    /**
+     * 查询权限索引，未登记时返回 -1（不会登记）
+     */
+    public static int indexOf(String authority) {
+        Entry entry = authority != null ? ENTRIES.get(authority) : null;
+        return entry != null ? entry.index() : -1;
+    }
+
+    /**
+     * 已登记的权限数量
+     */
+    public static int size() {
+        return NEXT_INDEX.get();
+    }
+
+    static Entry entry(String authority) {
+        Entry entry = ENTRIES.get(authority);
+        if (entry != null) {
+            return entry;
+        }
+        return ENTRIES.computeIfAbsent(authority,
+                key -> new Entry(NEXT_INDEX.getAndIncrement(), new SimpleGrantedAuthority(key)));
+    }
+
+    record Entry(int index, GrantedAuthority authority) {
+    }
+}
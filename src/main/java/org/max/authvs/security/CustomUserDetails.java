@@ -1,13 +1,18 @@
 package org.max.authvs.security;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 
 /**
  * 自定义UserDetails实现，包含用户完整信息
+ * 角色ID用于权限缓存按角色合并权限，为 null 表示权限不是按角色加载的（此时不写入 Redis 缓存）
+ * 权限在构造时换成 {@link AuthorityIndex} 中的共享实例，并预先计算权限位图和超级管理员标记
  */
 @Getter
 public class CustomUserDetails implements UserDetails {
@@ -19,7 +24,12 @@ public class CustomUserDetails implements UserDetails {
     private final String phone;
     private final Integer userType;
     private final boolean enabled;
+    private final List<Long> roleIds;
     private final Collection<? extends GrantedAuthority> authorities;
+    private final boolean superAdmin;
+    // 第 i 位表示拥有 AuthorityIndex 中索引为 i 的权限
+    @Getter(AccessLevel.NONE)
+    private final long[] authorityBits;
 
     public CustomUserDetails(Long id,
                              String username,
@@ -29,6 +39,18 @@ public class CustomUserDetails implements UserDetails {
                              Integer userType,
                              boolean enabled,
                              Collection<? extends GrantedAuthority> authorities) {
+        this(id, username, password, email, phone, userType, enabled, null, authorities);
+    }
+
+    public CustomUserDetails(Long id,
+                             String username,
+                             String password,
+                             String email,
+                             String phone,
+                             Integer userType,
+                             boolean enabled,
+                             List<Long> roleIds,
+                             Collection<? extends GrantedAuthority> authorities) {
         this.id = id;
         this.username = username;
         this.password = password;
@@ -36,7 +58,37 @@ public class CustomUserDetails implements UserDetails {
         this.phone = phone;
         this.userType = userType;
         this.enabled = enabled;
-        this.authorities = authorities;
+        this.roleIds = roleIds != null ? List.copyOf(roleIds) : null;
+
+        GrantedAuthority[] shared = new GrantedAuthority[authorities.size()];
+        long[] bits = new long[(AuthorityIndex.size() >> 6) + 1];
+        int count = 0;
+        for (GrantedAuthority authority : authorities) {
+            if (authority == null || authority.getAuthority() == null) {
+                continue;
+            }
+            AuthorityIndex.Entry entry = AuthorityIndex.entry(authority.getAuthority());
+            int index = entry.index();
+            if (index >> 6 >= bits.length) {
+                bits = Arrays.copyOf(bits, (index >> 6) + 1);
+            }
+            if ((bits[index >> 6] & (1L << index)) == 0) {
+                bits[index >> 6] |= 1L << index;
+                shared[count++] = entry.authority();
+            }
+        }
+        this.authorities = List.of(count == shared.length ? shared : Arrays.copyOf(shared, count));
+        this.authorityBits = bits;
+        this.superAdmin = hasAuthority(AuthorityIndex.SUPER_ADMIN);
+    }
+
+    /**
+     * 是否拥有指定权限（精确匹配，不考虑超级管理员）
+     */
+    public boolean hasAuthority(String authority) {
+        int index = AuthorityIndex.indexOf(authority);
+        return index >= 0 && index >> 6 < authorityBits.length
+                && (authorityBits[index >> 6] & (1L << index)) != 0;
     }
 
     @Override
@@ -55,19 +55,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         String token = authHeader.substring(7);
+        VerifiedToken verified = null;
         try {
+            // 每个请求只解析、验签一次，后续判断都复用该结果
+            verified = jwtService.verify(token);
             // If token has been revoked, reject immediately
-            if (jwtService.isTokenRevoked(token)) {
+            if (jwtService.isTokenRevoked(verified, token)) {
                 String message = i18nMessageService.getMessage("auth.token.revoked");
                 // 记录操作日志（失败）
-                recordAuthFailureLog(request, token, message);
+                recordAuthFailureLog(request, verified, message);
                 handlerExceptionResolver.resolveException(request, response, null, new TokenRevokedException(message));
                 return;
             }
-            String username = jwtService.extractUsername(token);
+            String username = verified.subject();
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
                 UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                if (jwtService.isTokenValid(token, userDetails)) {
+                if (jwtService.isTokenValid(verified, userDetails)) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             userDetails, null, userDetails.getAuthorities());
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -78,12 +81,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         } catch (Exception e) {
             String message = i18nMessageService.getMessage("auth.token.invalid");
             // 记录操作日志（失败）
-            recordAuthFailureLog(request, token, message);
+            recordAuthFailureLog(request, verified, message);
             handlerExceptionResolver.resolveException(request, response, null, new InvalidTokenException(message));
         }
     }
 
-    private void recordAuthFailureLog(HttpServletRequest request, String token, String message) {
+    /**
+     * 记录认证失败日志
+     *
+     * @param verified 已验签的 Token，验签失败时为 null（此时无法可信地提取用户信息）
+     */
+    private void recordAuthFailureLog(HttpServletRequest request, VerifiedToken verified, String message) {
         try {
             OperationLog log = new OperationLog();
             log.setOperationType("LOGIN");
@@ -93,17 +101,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             log.setRequestUrl(request.getRequestURI());
             log.setIpAddress(IpUtils.getRealIp(request));
             log.setUserAgent(request.getHeader("User-Agent"));
-            // 尝试从token中提取用户名和设备类型
-            try {
-                String username = jwtService.extractUsername(token);
-                String deviceCode = jwtService.extractDeviceTypeCode(token);
-                Long userId = jwtService.extractUserId(token);
-                log.setUsername(username);
-                log.setDeviceType(deviceCode);
-                if (userId != null) {
-                    log.setUserId(userId);
+            // 从已验签的token中提取用户名和设备类型
+            if (verified != null) {
+                log.setUsername(verified.subject());
+                log.setDeviceType(verified.deviceType());
+                if (verified.userId() != null) {
+                    log.setUserId(verified.userId());
                 }
-            } catch (Exception ignored) {
             }
             log.setStatus("FAIL");
             log.setErrorMessage(message);
@@ -0,0 +1,471 @@
+package org.max.authvs.security;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.SignatureAlgorithm;
+import lombok.extern.slf4j.Slf4j;
+import org.max.authvs.api.dto.jwks.out.JwkVo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.*;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT 非对称签名密钥环
+ * <p>
+ * - 密钥保存在 Redis（auth:jwt:keys），集群内所有节点共享同一套公钥
+ * - 私钥用配置的密钥加密密钥（key-encryption-key，AES-256-GCM，不保存在 Redis 中）加密后写入 Redis，
+ *   重启和新节点直接使用已发布的密钥签名；未配置时启动失败
+ * - 仅单节点开发环境可开启 node-local-keys：私钥只保存在本节点内存中，Redis 中只有公钥，
+ *   每次重启都会生成并立即启用新密钥（不经过 publish-delay）
+ * - Redis 中旧版明文私钥在加载时改写为加密或仅公钥的形式
+ * - 私钥在本地解码后常驻内存，签名时不再重复解析
+ * - 按 key-rotation 周期轮换：新密钥先发布到 JWKS，经过 publish-delay 后才用于签名，
+ * 保证资源服务缓存的 JWKS 在新 Token 出现前已包含新公钥
+ * - 已被替换的旧密钥保留一个轮换周期用于验签，之后退役
+ * - Redis 不可用时生成仅本节点可用的临时密钥，恢复后自动写回 Redis
+ */
+@Slf4j
+@Component
+public class JwtKeyRing {
+
+    private static final String KEYS_KEY = "auth:jwt:keys";
+    private static final String ROTATE_LOCK_KEY = "auth:jwt:keys:rotate-lock";
+    private static final long ROTATE_LOCK_TTL_MS = 60_000;
+    // 遇到未知 kid 时从 Redis 重新加载的最小间隔，防止伪造 kid 打爆 Redis
+    private static final long RELOAD_MIN_INTERVAL_MS = 1_000;
+    private static final Base64.Encoder B64URL = Base64.getUrlEncoder().withoutPadding();
+    // 私钥加密方式（写入 StoredKey.encryption）
+    private static final String KEY_ENCRYPTION = "A256GCM";
+    private static final int GCM_IV_BYTES = 12;
+    private static final int GCM_TAG_BITS = 128;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final SignatureAlgorithm algorithm;
+    private final Duration rotation;
+    private final Duration publishDelay;
+    // 私钥加密密钥，未配置时为 null（私钥不写入 Redis）
+    private final SecretKey keyEncryptionKey;
+
+    private volatile KeySet keySet;
+    private volatile long lastReloadAt;
+    // 本节点生成但尚未成功写入 Redis 的密钥
+    private final Map<String, StoredKey> unsavedKeys = new LinkedHashMap<>();
+    // 本节点生成的私钥（未配置加密密钥时只有这些密钥可用于签名）
+    private final Map<String, PrivateKey> localPrivateKeys = new HashMap<>();
+
+    public JwtKeyRing(StringRedisTemplate redisTemplate,
+                      ObjectMapper objectMapper,
+                      @Value("${authvs.jwt.algorithm:RS256}") String algorithm,
+                      @Value("${authvs.jwt.key-rotation:7d}") Duration rotation,
+                      @Value("${authvs.jwt.key-publish-delay:10m}") Duration publishDelay,
+                      @Value("${authvs.jwt.key-encryption-key:}") String keyEncryptionKey,
+                      @Value("${authvs.jwt.node-local-keys:false}") boolean nodeLocalKeys) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.algorithm = SignatureAlgorithm.forName(algorithm);
+        if (this.algorithm != SignatureAlgorithm.RS256 && this.algorithm != SignatureAlgorithm.ES256) {
+            throw new IllegalArgumentException("Unsupported JWT signing algorithm: " + algorithm + ", expected RS256 or ES256");
+        }
+        this.rotation = rotation;
+        this.publishDelay = publishDelay;
+        this.keyEncryptionKey = keyEncryptionKey(keyEncryptionKey);
+        if (this.keyEncryptionKey == null) {
+            if (!nodeLocalKeys) {
+                throw new IllegalArgumentException("authvs.jwt.key-encryption-key is required to share JWT signing keys, "
+                        + "set authvs.jwt.node-local-keys=true only for a single development node");
+            }
+            log.warn("authvs.jwt.node-local-keys is enabled, JWT signing keys stay node-local and every restart activates a new key immediately");
+        }
+    }
+
+    private static SecretKey keyEncryptionKey(String base64) {
+        if (base64 == null || base64.isBlank()) {
+            return null;
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getDecoder().decode(base64.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("authvs.jwt.key-encryption-key must be Base64", e);
+        }
+        if (bytes.length != 32) {
+            throw new IllegalArgumentException("authvs.jwt.key-encryption-key must be 32 bytes (AES-256), got " + bytes.length);
+        }
+        return new SecretKeySpec(bytes, "AES");
+    }
+
+    /**
+     * 当前用于签名的密钥
+     */
+    public SigningKey activeKey() {
+        return ensureLoaded().active();
+    }
+
+    /**
+     * 按 kid 查找验签密钥，本地不存在时（其他节点刚轮换）从 Redis 重新加载一次
+     *
+     * @return 密钥，不存在或已退役时返回 null
+     */
+    public SigningKey findKey(String kid) {
+        if (kid == null) {
+            return null;
+        }
+        SigningKey key = ensureLoaded().byKid().get(kid);
+        if (key == null && System.currentTimeMillis() - lastReloadAt > RELOAD_MIN_INTERVAL_MS) {
+            reload();
+            KeySet reloaded = keySet;
+            key = reloaded != null ? reloaded.byKid().get(kid) : null;
+        }
+        return key;
+    }
+
+    /**
+     * 对外发布的公钥列表（包含已发布但尚未启用的新密钥）
+     */
+    public List<JwkVo> publicJwks() {
+        return ensureLoaded().jwks();
+    }
+
+    /**
+     * 定期同步 Redis 中的密钥并在到期时轮换
+     */
+    @Scheduled(fixedDelayString = "${authvs.jwt.key-refresh-interval:60s}", initialDelayString = "${authvs.jwt.key-refresh-interval:60s}")
+    public void refresh() {
+        reload();
+        rotateIfDue();
+    }
+
+    private KeySet ensureLoaded() {
+        KeySet current = keySet;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (keySet == null) {
+                reload();
+                if (keySet == null) {
+                    // 还没有本节点可用于签名的密钥（集群首次启动，或 node-local-keys 模式下重启），生成一个并立即启用
+                    generateAndSave(Instant.now());
+                    reload();
+                }
+            }
+            return keySet;
+        }
+    }
+
+    private synchronized void reload() {
+        lastReloadAt = System.currentTimeMillis();
+        Map<String, StoredKey> stored = new HashMap<>();
+        try {
+            flushUnsavedKeys();
+            Map<Object, Object> entries = redisTemplate.opsForHash().entries(KEYS_KEY);
+            for (Object value : entries.values()) {
+                StoredKey key = objectMapper.readValue(value.toString(), StoredKey.class);
+                stored.put(key.kid(), migratePlaintext(key));
+            }
+        } catch (DataAccessException e) {
+            log.warn("Redis unavailable when loading JWT signing keys, using node-local keys only", e);
+            if (keySet != null) {
+                keySet.byKid().values().forEach(k -> stored.put(k.kid(), k.stored()));
+            }
+        } catch (JsonProcessingException e) {
+            log.error("Corrupted JWT signing key in Redis hash {}", KEYS_KEY, e);
+        }
+        unsavedKeys.forEach(stored::putIfAbsent);
+        retireExpired(stored);
+        localPrivateKeys.keySet().retainAll(stored.keySet());
+        List<SigningKey> keys = stored.values().stream().map(this::decode).filter(Objects::nonNull).toList();
+        // 没有本节点可用于签名的密钥时保持未加载状态，由 ensureLoaded 生成
+        keySet = keys.stream().anyMatch(SigningKey::canSign) ? KeySet.of(keys) : null;
+    }
+
+    /**
+     * 旧版 Redis 条目中的明文私钥：解码后留在本地，条目改写为加密（或仅公钥）的形式
+     */
+    private StoredKey migratePlaintext(StoredKey key) {
+        if (key.encryption() != null || key.privateKey() == null) {
+            return key;
+        }
+        try {
+            KeyFactory factory = KeyFactory.getInstance(SignatureAlgorithm.forName(key.alg()).isRsa() ? "RSA" : "EC");
+            PrivateKey privateKey = factory.generatePrivate(
+                    new PKCS8EncodedKeySpec(Base64.getDecoder().decode(key.privateKey())));
+            localPrivateKeys.put(key.kid(), privateKey);
+            StoredKey migrated = protect(key.kid(), key.alg(), privateKey, key.publicKey(), key.createdAt(), key.activateAt());
+            redisTemplate.opsForHash().put(KEYS_KEY, key.kid(), objectMapper.writeValueAsString(migrated));
+            log.info("Removed plaintext private key of JWT signing key kid={} from Redis", key.kid());
+            return migrated;
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            log.error("Failed to decode legacy JWT signing key kid={}", key.kid(), e);
+            return key;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize JWT signing key", e);
+        }
+    }
+
+    private void rotateIfDue() {
+        KeySet current = keySet;
+        if (current == null) {
+            return;
+        }
+        Instant newest = current.newestSignableCreatedAt();
+        if (newest.plus(rotation).isAfter(Instant.now())) {
+            return;
+        }
+        try {
+            Boolean locked = redisTemplate.opsForValue()
+                    .setIfAbsent(ROTATE_LOCK_KEY, "1", ROTATE_LOCK_TTL_MS, TimeUnit.MILLISECONDS);
+            if (!Boolean.TRUE.equals(locked)) {
+                return;
+            }
+        } catch (DataAccessException e) {
+            log.warn("Redis unavailable, postpone JWT signing key rotation", e);
+            return;
+        }
+        generateAndSave(Instant.now().plus(publishDelay));
+        reload();
+    }
+
+    /**
+     * 移除已被替换超过一个轮换周期的旧密钥（当前启用的密钥永远保留）
+     */
+    private void retireExpired(Map<String, StoredKey> stored) {
+        Instant now = Instant.now();
+        Instant cutoff = now.minus(rotation.multipliedBy(2));
+        Optional<StoredKey> active = stored.values().stream()
+                .filter(k -> !Instant.ofEpochMilli(k.activateAt()).isAfter(now))
+                .max(Comparator.comparingLong(StoredKey::activateAt));
+        List<String> retired = stored.values().stream()
+                .filter(k -> Instant.ofEpochMilli(k.createdAt()).isBefore(cutoff))
+                .filter(k -> active.isEmpty() || !active.get().kid().equals(k.kid()))
+                .map(StoredKey::kid)
+                .toList();
+        if (retired.isEmpty()) {
+            return;
+        }
+        retired.forEach(stored::remove);
+        try {
+            redisTemplate.opsForHash().delete(KEYS_KEY, retired.toArray());
+            log.info("Retired JWT signing keys: {}", retired);
+        } catch (DataAccessException e) {
+            log.warn("Redis unavailable when retiring JWT signing keys {}", retired, e);
+        }
+    }
+
+    private synchronized void generateAndSave(Instant activateAt) {
+        KeyPair keyPair = generateKeyPair();
+        byte[] kidBytes = new byte[8];
+        RANDOM.nextBytes(kidBytes);
+        String kid = B64URL.encodeToString(kidBytes);
+        StoredKey key = protect(kid, algorithm.getValue(), keyPair.getPrivate(),
+                Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()),
+                System.currentTimeMillis(), activateAt.toEpochMilli());
+        localPrivateKeys.put(kid, keyPair.getPrivate());
+        unsavedKeys.put(key.kid(), key);
+        try {
+            flushUnsavedKeys();
+            log.info("Generated JWT signing key kid={}, alg={}, activateAt={}", key.kid(), key.alg(), activateAt);
+        } catch (DataAccessException e) {
+            log.warn("Redis unavailable, JWT signing key kid={} is node-local until Redis recovers", key.kid(), e);
+        }
+    }
+
+    private void flushUnsavedKeys() {
+        Iterator<StoredKey> it = unsavedKeys.values().iterator();
+        while (it.hasNext()) {
+            StoredKey key = it.next();
+            try {
+                redisTemplate.opsForHash().putIfAbsent(KEYS_KEY, key.kid(), objectMapper.writeValueAsString(key));
+                it.remove();
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Failed to serialize JWT signing key", e);
+            }
+        }
+    }
+
+    private KeyPair generateKeyPair() {
+        try {
+            if (algorithm == SignatureAlgorithm.ES256) {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+                generator.initialize(new ECGenParameterSpec("secp256r1"));
+                return generator.generateKeyPair();
+            }
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            return generator.generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to generate JWT signing key pair", e);
+        }
+    }
+
+    /**
+     * 生成 Redis 存储格式：配置了加密密钥时私钥加密保存，否则不保存私钥
+     */
+    private StoredKey protect(String kid, String alg, PrivateKey privateKey, String publicKey,
+                              long createdAt, long activateAt) {
+        if (keyEncryptionKey == null) {
+            return new StoredKey(kid, alg, null, publicKey, createdAt, activateAt, null);
+        }
+        try {
+            byte[] iv = new byte[GCM_IV_BYTES];
+            RANDOM.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, keyEncryptionKey, new GCMParameterSpec(GCM_TAG_BITS, iv));
+            // kid 作为附加数据，密文不能挪到其他条目使用
+            cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+            byte[] ciphertext = cipher.doFinal(privateKey.getEncoded());
+            byte[] sealed = new byte[iv.length + ciphertext.length];
+            System.arraycopy(iv, 0, sealed, 0, iv.length);
+            System.arraycopy(ciphertext, 0, sealed, iv.length, ciphertext.length);
+            return new StoredKey(kid, alg, Base64.getEncoder().encodeToString(sealed), publicKey,
+                    createdAt, activateAt, KEY_ENCRYPTION);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to encrypt JWT signing key", e);
+        }
+    }
+
+    private SigningKey decode(StoredKey stored) {
+        SignatureAlgorithm alg;
+        PublicKey publicKey;
+        KeyFactory factory;
+        try {
+            alg = SignatureAlgorithm.forName(stored.alg());
+            factory = KeyFactory.getInstance(alg.isRsa() ? "RSA" : "EC");
+            publicKey = factory.generatePublic(
+                    new X509EncodedKeySpec(Base64.getDecoder().decode(stored.publicKey())));
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            log.error("Failed to decode JWT signing key kid={}", stored.kid(), e);
+            return null;
+        }
+        PrivateKey privateKey = localPrivateKeys.get(stored.kid());
+        if (privateKey == null && KEY_ENCRYPTION.equals(stored.encryption()) && keyEncryptionKey != null) {
+            try {
+                privateKey = factory.generatePrivate(new PKCS8EncodedKeySpec(decrypt(stored)));
+            } catch (GeneralSecurityException | IllegalArgumentException e) {
+                // 加密密钥不一致：该密钥只用于验签
+                log.error("Failed to decrypt JWT signing key kid={}, check authvs.jwt.key-encryption-key", stored.kid(), e);
+            }
+        }
+        return new SigningKey(stored.kid(), alg, privateKey, publicKey, toJwk(stored.kid(), alg, publicKey), stored);
+    }
+
+    private byte[] decrypt(StoredKey stored) throws GeneralSecurityException {
+        byte[] sealed = Base64.getDecoder().decode(stored.privateKey());
+        if (sealed.length <= GCM_IV_BYTES) {
+            throw new GeneralSecurityException("Encrypted private key is too short");
+        }
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, keyEncryptionKey, new GCMParameterSpec(GCM_TAG_BITS, sealed, 0, GCM_IV_BYTES));
+        cipher.updateAAD(stored.kid().getBytes(StandardCharsets.UTF_8));
+        return cipher.doFinal(sealed, GCM_IV_BYTES, sealed.length - GCM_IV_BYTES);
+    }
+
+    private static JwkVo toJwk(String kid, SignatureAlgorithm alg, PublicKey publicKey) {
+        if (publicKey instanceof RSAPublicKey rsa) {
+            return new JwkVo("RSA", kid, "sig", alg.getValue(),
+                    B64URL.encodeToString(unsigned(rsa.getModulus(), 0)),
+                    B64URL.encodeToString(unsigned(rsa.getPublicExponent(), 0)),
+                    null, null, null);
+        }
+        ECPublicKey ec = (ECPublicKey) publicKey;
+        return new JwkVo("EC", kid, "sig", alg.getValue(), null, null, "P-256",
+                B64URL.encodeToString(unsigned(ec.getW().getAffineX(), 32)),
+                B64URL.encodeToString(unsigned(ec.getW().getAffineY(), 32)));
+    }
+
+    /**
+     * BigInteger 转无符号大端字节数组，length > 0 时左侧补零到固定长度
+     */
+    private static byte[] unsigned(BigInteger value, int length) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        if (length > bytes.length) {
+            byte[] padded = new byte[length];
+            System.arraycopy(bytes, 0, padded, length - bytes.length, bytes.length);
+            return padded;
+        }
+        return bytes;
+    }
+
+    /**
+     * 已解码的签名密钥；privateKey 为 null 时只用于验签
+     */
+    public record SigningKey(String kid,
+                             SignatureAlgorithm algorithm,
+                             PrivateKey privateKey,
+                             PublicKey publicKey,
+                             JwkVo jwk,
+                             StoredKey stored) {
+
+        boolean canSign() {
+            return privateKey != null;
+        }
+    }
+
+    /**
+     * Redis 中的密钥存储格式（X.509 公钥，Base64）
+     * privateKey：encryption 为 A256GCM 时为 Base64(IV + 密文)，为 null 时表示未保存私钥；
+     * 旧版条目 encryption 为 null 且 privateKey 为明文 PKCS#8，加载时改写
+     */
+    public record StoredKey(String kid,
+                            String alg,
+                            String privateKey,
+                            String publicKey,
+                            long createdAt,
+                            long activateAt,
+                            String encryption) {
+    }
+
+    private record KeySet(SigningKey active, Map<String, SigningKey> byKid, List<JwkVo> jwks) {
+
+        static KeySet of(List<SigningKey> keys) {
+            long now = System.currentTimeMillis();
+            // 可签名且已到启用时间的密钥中最新的一个用于签名；若都未到启用时间则退回最早的密钥
+            List<SigningKey> signable = keys.stream().filter(SigningKey::canSign).toList();
+            SigningKey active = signable.stream()
+                    .filter(k -> k.stored().activateAt() <= now)
+                    .max(Comparator.comparingLong(k -> k.stored().activateAt()))
+                    .orElseGet(() -> signable.stream()
+                            .min(Comparator.comparingLong(k -> k.stored().activateAt()))
+                            .orElseThrow());
+            Map<String, SigningKey> byKid = new HashMap<>();
+            keys.forEach(k -> byKid.put(k.kid(), k));
+            List<JwkVo> jwks = keys.stream()
+                    .sorted(Comparator.comparingLong((SigningKey k) -> k.stored().createdAt()).reversed())
+                    .map(SigningKey::jwk)
+                    .toList();
+            return new KeySet(active, Map.copyOf(byKid), jwks);
+        }
+
+        Instant newestSignableCreatedAt() {
+            return Instant.ofEpochMilli(byKid.values().stream()
+                    .filter(SigningKey::canSign)
+                    .mapToLong(k -> k.stored().createdAt())
+                    .max()
+                    .orElse(0));
+        }
+    }
+}
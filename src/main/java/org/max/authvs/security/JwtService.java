@@ -1,103 +1,302 @@
 package org.max.authvs.security;
 
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jws;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import lombok.extern.slf4j.Slf4j;
+import org.jspecify.annotations.NonNull;
 import org.max.authvs.api.dto.auth.DeviceType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
+@Slf4j
 @Service
 public class JwtService {
 
-    private static final String SECRET = "super-secret-key-change-me-please-32-bytes-minimum";
-    private static final long EXPIRATION_MS = 60 * 60 * 1000; // 1h
-    private static final String REVOKED_PREFIX = "auth:revoked:";
+    // 旧版 HS256 密钥（已公开，不再可信），仅在迁移窗口内校验切换前签发的 Token；下一个版本移除
+    private static final String LEGACY_SECRET = "super-secret-key-change-me-please-32-bytes-minimum";
+    // 旧版 Token 的有效期，迁移窗口最长为切换时刻之后的这段时间
+    private static final Duration LEGACY_TOKEN_LIFETIME = Duration.ofHours(1);
+    // 访问令牌短期有效，过期后使用刷新令牌换取；撤销记录最多只需保留 5 分钟
+    private static final long EXPIRATION_MS = 5 * 60 * 1000; // 5min
+    private static final String REVOKED_PREFIX = RevocationRegistry.REVOKED_PREFIX;
     private static final String USER_DEVICE_PREFIX = "auth:user:";
     private static final String DEVICE_TYPE_CLAIM = "deviceType";
     private static final String USER_ID_CLAIM = "userId";
+    private static final String EPOCH_CLAIM = "ver";
+    // jti 随机字节数：96 位足以保证唯一，Base64URL 编码后仅 16 个字符
+    private static final int JTI_BYTES = 12;
+    private static final SecureRandom JTI_RANDOM = new SecureRandom();
+    // 已验签 Token 的本地缓存上限，热点 Token 在过期前无需重复验签
+    private static final int VERIFIED_TOKEN_CACHE_SIZE = 100_000;
+
+    /**
+     * 登录/刷新时的会话写入脚本，一次往返内原子完成：
+     * 1. 替换设备会话的 jti（并发登录只有最后一个生效），返回旧 jti 及其剩余 TTL
+     * 2. 写入权限快照
+     * 3. 读取用户纪元，写入 Token 的 ver 声明
+     * 4. 登录时创建新的刷新令牌族，替换该设备类型上的族指针，返回旧族ID
+     * 脚本只访问 KEYS 中声明的键；旧 jti 的撤销记录和旧族的删除由调用方在脚本返回后完成。
+     * 各键不在同一个哈希槽，需要单节点 Redis（或主从/Sentinel），不支持 Redis Cluster
+     * <p>
+     * KEYS: 1 设备 jti 键，2 权限缓存键，3 纪元键，4 设备令牌族键，5 新刷新令牌键，6 新令牌族键
+     * ARGV: 1 新 jti，2 访问令牌 TTL，3 权限快照（二进制，空串不写），4 权限缓存 TTL，
+     * 5 新令牌族ID（空串表示不创建），6 新刷新令牌摘要，7 刷新令牌 TTL，8 用户ID，9 用户名，10 设备类型
+     * 返回：{纪元, 旧 jti（不存在为空串）, 旧 jti 剩余毫秒, 被替换的旧族ID（不存在为空串）}
+     */
+    private static final RedisScript<List> SESSION_SCRIPT = new DefaultRedisScript<>("""
+            local old = redis.call('GET', KEYS[1])
+            local oldTtl = -2
+            if old then
+                oldTtl = redis.call('PTTL', KEYS[1])
+            end
+            redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+            if ARGV[3] ~= '' then
+                redis.call('SET', KEYS[2], ARGV[3], 'PX', ARGV[4])
+            end
+            local epoch = tonumber(redis.call('GET', KEYS[3]) or '0') or 0
+            local oldFamily = false
+            if ARGV[5] ~= '' then
+                oldFamily = redis.call('GET', KEYS[4])
+                local record = cjson.encode({familyId = ARGV[5], userId = ARGV[8], username = ARGV[9],
+                                             deviceType = ARGV[10], epoch = epoch})
+                redis.call('SET', KEYS[5], record, 'PX', ARGV[7])
+                redis.call('SET', KEYS[6], ARGV[6], 'PX', ARGV[7])
+                redis.call('SET', KEYS[4], ARGV[5], 'PX', ARGV[7])
+            end
+            return {epoch, old or '', oldTtl, oldFamily or ''}
+            """, List.class);
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final RedisSerializer<List> SESSION_RESULT_SERIALIZER = (RedisSerializer) RedisSerializer.string();
 
     private final StringRedisTemplate redisTemplate;
     private final PermissionCacheService permissionCacheService;
+    private final JwtKeyRing keyRing;
+    private final RevocationRegistry revocationRegistry;
+    private final TokenEpochService tokenEpochService;
+    private final RefreshTokenService refreshTokenService;
+    private final RedisCircuitBreaker circuitBreaker;
+    // 本地撤销集合未加载且 Redis 不可用时是否放行（true 放行，false 视为已撤销）
+    private final boolean revocationFailOpen;
+    // 解析器是线程安全的，只构建一次；验签密钥按 Token 头部的 kid 从密钥环解析
+    private final JwtParser jwtParser;
+    private final Cache<String, VerifiedToken> verifiedTokens;
 
-    public JwtService(StringRedisTemplate redisTemplate, PermissionCacheService permissionCacheService) {
+    public JwtService(StringRedisTemplate redisTemplate,
+                      PermissionCacheService permissionCacheService,
+                      JwtKeyRing keyRing,
+                      RevocationRegistry revocationRegistry,
+                      TokenEpochService tokenEpochService,
+                      RefreshTokenService refreshTokenService,
+                      RedisCircuitBreaker circuitBreaker,
+                      @Value("${authvs.jwt.accept-legacy-hs256:false}") boolean acceptLegacyHs256,
+                      @Value("${authvs.jwt.legacy-hs256-cutover:}") String legacyHs256Cutover,
+                      @Value("${authvs.revocation.fail-open:true}") boolean revocationFailOpen) {
         this.redisTemplate = redisTemplate;
         this.permissionCacheService = permissionCacheService;
+        this.keyRing = keyRing;
+        this.revocationRegistry = revocationRegistry;
+        this.tokenEpochService = tokenEpochService;
+        this.refreshTokenService = refreshTokenService;
+        this.circuitBreaker = circuitBreaker;
+        this.revocationFailOpen = revocationFailOpen;
+        LegacyWindow legacyWindow = null;
+        if (acceptLegacyHs256) {
+            if (legacyHs256Cutover == null || legacyHs256Cutover.isBlank()) {
+                throw new IllegalArgumentException(
+                        "authvs.jwt.accept-legacy-hs256 requires authvs.jwt.legacy-hs256-cutover (ISO-8601 instant)");
+            }
+            legacyWindow = new LegacyWindow(Keys.hmacShaKeyFor(LEGACY_SECRET.getBytes(StandardCharsets.UTF_8)),
+                    Instant.parse(legacyHs256Cutover.trim()));
+        }
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new KeyRingResolver(keyRing, legacyWindow))
+                .build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(VERIFIED_TOKEN_CACHE_SIZE)
+                .expireAfter(new VerifiedTokenExpiry())
+                .build();
     }
 
-    private SecretKey getKey() {
-        return Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+    /**
+     * 生成 Token，包含设备类型信息（刷新令牌时使用，不创建新的刷新令牌族）
+     *
+     * @param userDetails 用户详情
+     * @param deviceType  设备类型
+     * @param userId      用户ID
+     * @return JWT token
+     */
+    public String generateToken(UserDetails userDetails, DeviceType deviceType, Long userId) {
+        return generateToken(userDetails, deviceType, userId, null);
     }
 
     /**
-     * 生成 Token，包含设备类型信息
+     * 生成 Token，设备会话替换、权限快照和刷新令牌族在一次 Redis 脚本调用中原子写入，随后撤销被替换的旧会话
+     * 会话和刷新令牌只保存在 Redis 中，熔断期间登录和刷新直接失败（{@link RedisCircuitBreaker.OpenException}），
+     * 由全局异常处理返回"服务暂不可用"，不等待 Redis 超时
      *
      * @param userDetails 用户详情
      * @param deviceType  设备类型
      * @param userId      用户ID
+     * @param family      登录时新建的刷新令牌族，为 null 时不写入
      * @return JWT token
      */
-    public String generateToken(UserDetails userDetails, DeviceType deviceType, Long userId) {
-        // 先撤销该用户在同一设备类型上的旧 token
-        revokeUserDeviceToken(userId, deviceType);
+    public String generateToken(UserDetails userDetails, DeviceType deviceType, Long userId,
+                                RefreshTokenService.NewFamily family) {
+        String jti = newJti();
+        byte[] permissionSnapshot = userDetails instanceof CustomUserDetails customUserDetails
+                ? permissionCacheService.encodeSnapshot(customUserDetails) : null;
+        long refreshTtlMillis = refreshTokenService.getTtl().toMillis();
+        long nowMillis = System.currentTimeMillis();
+
+        List<String> keys = List.of(
+                USER_DEVICE_PREFIX + userId + ":device:" + deviceType.getCode(),
+                PermissionCacheService.cacheKey(userDetails.getUsername()),
+                TokenEpochService.EPOCH_PREFIX + userId,
+                RefreshTokenService.deviceFamilyKey(userId, deviceType.getCode()),
+                family != null ? RefreshTokenService.recordKey(family.digest()) : "",
+                family != null ? RefreshTokenService.familyKey(family.familyId()) : "");
+        // 权限快照是二进制数据，参数统一按字节传递；返回值中的字符串按 UTF-8 解码
+        List<?> result = circuitBreaker.call(() -> redisTemplate.execute(SESSION_SCRIPT, RedisSerializer.byteArray(), SESSION_RESULT_SERIALIZER, keys,
+                bytes(jti),
+                bytes(String.valueOf(EXPIRATION_MS)),
+                permissionSnapshot != null ? permissionSnapshot : new byte[0],
+                bytes(String.valueOf(permissionCacheService.nextTtl().toMillis())),
+                bytes(family != null ? family.familyId() : ""),
+                bytes(family != null ? family.digest() : ""),
+                bytes(String.valueOf(refreshTtlMillis)),
+                bytes(String.valueOf(userId)),
+                bytes(userDetails.getUsername()),
+                bytes(deviceType.getCode())));
+
+        long epoch = result != null ? toLong(result.get(0)) : 0L;
+        tokenEpochService.observe(userId, epoch);
+        if (permissionSnapshot != null) {
+            permissionCacheService.cacheLocally((CustomUserDetails) userDetails);
+        }
+        if (result != null) {
+            revokeReplacedSession((String) result.get(1), toLong(result.get(2)), nowMillis);
+            deleteReplacedFamily((String) result.get(3));
+        }
 
-        Date now = new Date();
-        Date expiry = new Date(now.getTime() + EXPIRATION_MS);
+        Date now = new Date(nowMillis);
+        Date expiry = new Date(nowMillis + EXPIRATION_MS);
 
         Map<String, Object> claims = new java.util.HashMap<>();
         claims.put(DEVICE_TYPE_CLAIM, deviceType.getCode());
         claims.put(USER_ID_CLAIM, userId);
+        claims.put(EPOCH_CLAIM, epoch);
 
-        String token = Jwts.builder()
+        JwtKeyRing.SigningKey signingKey = keyRing.activeKey();
+        return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, signingKey.kid())
+                .setId(jti)
                 .setSubject(userDetails.getUsername())
                 .addClaims(claims)
                 .setIssuedAt(now)
                 .setExpiration(expiry)
-                .signWith(getKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey.privateKey(), signingKey.algorithm())
                 .compact();
+    }
 
-        // 保存新的 token 到 Redis，用于单设备登录控制
-        saveUserDeviceToken(userId, deviceType, token, EXPIRATION_MS);
+    /**
+     * 访问令牌有效期（秒）
+     */
+    public long getExpirationSeconds() {
+        return EXPIRATION_MS / 1000;
+    }
 
-        // 缓存权限信息，减少后续请求的数据库查询
-        if (userDetails instanceof CustomUserDetails customUserDetails) {
-            permissionCacheService.cachePermissions(customUserDetails);
+    /**
+     * 撤销被替换的旧设备会话：写入撤销记录、加入本地集合并广播
+     * 升级前设备键保存的是完整 token，需在本地计算摘要后撤销
+     * 新会话已写入，撤销失败只记录日志（本地集合已更新，其他节点最迟在旧 token 过期时不再接受）
+     */
+    private void revokeReplacedSession(String oldValue, Long ttlMillis, long nowMillis) {
+        if (oldValue == null || oldValue.isEmpty()) {
+            return;
+        }
+        if (oldValue.indexOf('.') >= 0) {
+            revokeToken(oldValue);
+        } else if (ttlMillis != null && ttlMillis > 0) {
+            try {
+                revocationRegistry.revoke(oldValue, nowMillis + ttlMillis);
+            } catch (DataAccessException e) {
+                log.warn("Failed to revoke replaced session jti={}: {}", oldValue, e.getMessage());
+            }
         }
-
-        return token;
     }
 
     /**
-     * 保存用户设备 token 到 Redis
+     * 删除被新登录替换的刷新令牌族，族内令牌随即失效
      */
-    private void saveUserDeviceToken(Long userId, DeviceType deviceType, String token, long ttlMillis) {
-        String key = USER_DEVICE_PREFIX + userId + ":device:" + deviceType.getCode();
-        redisTemplate.opsForValue().set(key, token, ttlMillis, TimeUnit.MILLISECONDS);
+    private void deleteReplacedFamily(String oldFamily) {
+        if (oldFamily == null || oldFamily.isEmpty()) {
+            return;
+        }
+        try {
+            circuitBreaker.call(() -> redisTemplate.delete(RefreshTokenService.familyKey(oldFamily)));
+        } catch (DataAccessException e) {
+            log.warn("Failed to delete replaced refresh token family {}: {}", oldFamily, e.getMessage());
+        }
     }
 
     /**
-     * 撤销用户在指定设备类型上的旧 token
+     * 解析并验签 Token，结果按 Token 摘要缓存至过期
+     * 同一个 Token 在过期前重复出现时直接命中缓存，不再执行 HMAC 校验和 JSON 解析
+     *
+     * @param token JWT 原文
+     * @return 已验签的 Token 上下文
+     * @throws io.jsonwebtoken.JwtException 签名无效、格式错误或已过期时抛出
      */
-    private void revokeUserDeviceToken(Long userId, DeviceType deviceType) {
-        String key = USER_DEVICE_PREFIX + userId + ":device:" + deviceType.getCode();
-        String oldToken = redisTemplate.opsForValue().get(key);
-        if (oldToken != null && !oldToken.isEmpty()) {
-            revokeToken(oldToken);
-            redisTemplate.delete(key);
+    public VerifiedToken verify(String token) {
+        String digest = digest(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null && !cached.isExpired()) {
+            return cached;
         }
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        VerifiedToken verified = new VerifiedToken(
+                claims.getSubject(),
+                toLong(claims.get(USER_ID_CLAIM)),
+                claims.get(DEVICE_TYPE_CLAIM) != null ? claims.get(DEVICE_TYPE_CLAIM).toString() : null,
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null,
+                claims.getId(),
+                claims.get(EPOCH_CLAIM) != null ? toLong(claims.get(EPOCH_CLAIM)) : 0L,
+                digest
+        );
+        if (!verified.isExpired()) {
+            verifiedTokens.put(digest, verified);
+        }
+        return verified;
     }
 
     public String extractUsername(String token) {
-        return parseClaims(token).getBody().getSubject();
+        return verify(token).subject();
     }
 
     /**
@@ -105,8 +304,7 @@ public class JwtService {
      */
     public String extractDeviceTypeCode(String token) {
         try {
-            Object code = parseClaims(token).getBody().get(DEVICE_TYPE_CLAIM);
-            return code != null ? code.toString() : null;
+            return verify(token).deviceType();
         } catch (Exception e) {
             return null;
         }
@@ -117,12 +315,7 @@ public class JwtService {
      */
     public Long extractUserId(String token) {
         try {
-            Object val = parseClaims(token).getBody().get(USER_ID_CLAIM);
-            if (val == null) return null;
-            if (val instanceof Number num) {
-                return num.longValue();
-            }
-            return Long.parseLong(String.valueOf(val));
+            return verify(token).userId();
         } catch (Exception e) {
             return null;
         }
@@ -130,40 +323,182 @@ public class JwtService {
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
         try {
-            Jws<Claims> claims = parseClaims(token);
-            String username = claims.getBody().getSubject();
-            Date expiration = claims.getBody().getExpiration();
-            return username.equals(userDetails.getUsername()) && expiration.after(new Date());
+            return isTokenValid(verify(token), userDetails);
         } catch (Exception e) {
             return false;
         }
     }
 
+    public boolean isTokenValid(VerifiedToken token, UserDetails userDetails) {
+        return token.subject() != null
+                && token.subject().equals(userDetails.getUsername())
+                && !token.isExpired();
+    }
+
     // Mark a token as revoked until its natural expiration
     public void revokeToken(String token) {
         try {
-            Date expiration = parseClaims(token).getBody().getExpiration();
+            VerifiedToken verified = verify(token);
+            Instant expiration = verified.expiresAt();
             if (expiration == null) return;
-            long ttlMillis = expiration.getTime() - System.currentTimeMillis();
-            if (ttlMillis <= 0) return;
-            String key = REVOKED_PREFIX + token;
-            redisTemplate.opsForValue().set(key, "1", ttlMillis, TimeUnit.MILLISECONDS);
+            revocationRegistry.revoke(verified.revocationId(), expiration.toEpochMilli());
         } catch (Exception ignored) {
             // 无法解析令牌时，忽略撤销请求
         }
     }
 
-    // Check if token is revoked (and not yet expired). Clean up expired entries lazily
-    public boolean isTokenRevoked(String token) {
-        String key = REVOKED_PREFIX + token;
-        Boolean exists = redisTemplate.hasKey(key);
-        return exists != null && exists;
+    /**
+     * 撤销用户已签发的全部 token（登出所有设备、禁用账号、重置密码）
+     */
+    public void revokeAllTokens(Long userId) {
+        tokenEpochService.bump(userId);
+    }
+
+    /**
+     * 同 {@link #revokeAllTokens}，Redis 不可用时不抛出异常，改为后台重试；用于数据库事务提交之后
+     */
+    public void revokeAllTokensOrRetry(Long userId) {
+        tokenEpochService.bumpOrRetry(userId);
+    }
+
+    /**
+     * 检查 token 是否已被撤销：单个 token 的撤销记录，或用户纪元已递增
+     * 本地撤销集合加载完成后只查本地集合，不访问 Redis；未加载完成且 Redis 不可用（含熔断）时按失败策略处理
+     *
+     * @param verified 已验签的 token
+     * @param token    token 原文，仅用于兼容升级前按完整 token 写入的撤销记录
+     */
+    public boolean isTokenRevoked(VerifiedToken verified, String token) {
+        return tokenEpochService.isStale(verified) || isTokenRevokedIndividually(verified, token);
     }
 
-    private Jws<Claims> parseClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getKey())
-                .build()
-                .parseClaimsJws(token);
+    private boolean isTokenRevokedIndividually(VerifiedToken verified, String token) {
+        if (revocationRegistry.isBootstrapped()) {
+            return revocationRegistry.isRevokedLocally(verified.revocationId());
+        }
+        try {
+            if (verified.jti() != null) {
+                Boolean exists = circuitBreaker.call(() -> redisTemplate.hasKey(REVOKED_PREFIX + verified.jti()));
+                return exists != null && exists;
+            }
+            Long count = circuitBreaker.call(() -> redisTemplate.countExistingKeys(
+                    List.of(REVOKED_PREFIX + verified.digest(), REVOKED_PREFIX + token)));
+            return count != null && count > 0;
+        } catch (DataAccessException e) {
+            return !revocationFailOpen;
+        }
+    }
+
+    private static String newJti() {
+        byte[] bytes = new byte[JTI_BYTES];
+        JTI_RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Long toLong(Object val) {
+        if (val == null) return null;
+        if (val instanceof Number num) {
+            return num.longValue();
+        }
+        try {
+            return Long.parseLong(String.valueOf(val));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 计算 Token 的 SHA-256 摘要，定长且无碰撞风险，适合作为缓存键
+     */
+    static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * 旧版 HS256 Token 的迁移窗口：只接受切换时刻之前签发、有效期不超过旧版有效期的 Token，
+     * 切换时刻之后最多再接受 LEGACY_TOKEN_LIFETIME，窗口结束后不再接受任何 HS256 Token
+     */
+    private record LegacyWindow(SecretKey key, Instant cutover) {
+
+        boolean accepts(Claims claims) {
+            Date issuedAt = claims.getIssuedAt();
+            Date expiration = claims.getExpiration();
+            if (issuedAt == null || expiration == null) {
+                return false;
+            }
+            Instant iat = issuedAt.toInstant();
+            return iat.isBefore(cutover)
+                    && !expiration.toInstant().isAfter(iat.plus(LEGACY_TOKEN_LIFETIME))
+                    && Instant.now().isBefore(cutover.plus(LEGACY_TOKEN_LIFETIME));
+        }
+    }
+
+    /**
+     * 按 kid 从密钥环选择验签公钥；无 kid 的 HS256 Token 视为旧版 Token，只在迁移窗口内接受
+     * 同时校验头部 alg 与密钥算法一致，防止算法混淆攻击
+     */
+    private static class KeyRingResolver extends SigningKeyResolverAdapter {
+
+        private final JwtKeyRing keyRing;
+        private final LegacyWindow legacyWindow;
+
+        KeyRingResolver(JwtKeyRing keyRing, LegacyWindow legacyWindow) {
+            this.keyRing = keyRing;
+            this.legacyWindow = legacyWindow;
+        }
+
+        @Override
+        public Key resolveSigningKey(JwsHeader header, Claims claims) {
+            String kid = header.getKeyId();
+            if (kid == null) {
+                if (legacyWindow != null && SignatureAlgorithm.HS256.getValue().equals(header.getAlgorithm())
+                        && legacyWindow.accepts(claims)) {
+                    return legacyWindow.key();
+                }
+                throw new SignatureException("JWT header has no kid");
+            }
+            JwtKeyRing.SigningKey key = keyRing.findKey(kid);
+            if (key == null) {
+                throw new SignatureException("Unknown JWT signing key: " + kid);
+            }
+            if (!key.algorithm().getValue().equals(header.getAlgorithm())) {
+                throw new SignatureException("JWT alg does not match signing key " + kid);
+            }
+            return key.publicKey();
+        }
+    }
+
+    /**
+     * 缓存条目在 Token 的 exp 时刻过期
+     */
+    private static class VerifiedTokenExpiry implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(@NonNull String key, @NonNull VerifiedToken value, long currentTime) {
+            if (value.expiresAt() == null) {
+                return 0;
+            }
+            long remainingMillis = value.expiresAt().toEpochMilli() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(@NonNull String key, @NonNull VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(@NonNull String key, @NonNull VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
-}
\ No newline at end of file
+}
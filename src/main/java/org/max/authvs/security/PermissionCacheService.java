@@ -1,112 +1,529 @@
 package org.max.authvs.security;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import lombok.extern.slf4j.Slf4j;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * 权限缓存服务：
- * - 登录时缓存权限
- * - 请求时优先命中缓存，减少数据库查询
- * - 权限变更时清理缓存
+ * 权限缓存服务（两级缓存）：
+ * - L1：进程内 Caffeine 缓存，保存已合并权限的 CustomUserDetails，以及各角色的权限集合，有容量和时间上限
+ * - L2：Redis，用户快照（auth:permissions:{username}）只记录用户信息和角色ID，
+ *   角色的权限集合单独缓存（auth:role-permissions:{roleId}），读取时按角色合并
+ * - 登录时写入两级缓存（write-through），请求时依次查 L1、L2，稳态下不访问网络
+ * - 用户的角色分配变更时清理该用户；角色的权限变更时只清理该角色，持有该角色的用户在下次访问时重新合并
+ * - 清理操作通过 pub/sub 通知其他节点清理各自的 L1
+ * - Redis 条目的 TTL 随机缩短（抖动），同一时间写入的条目不会同时过期；
+ *   读取 Redis 时发现条目已接近过期则通知调用方在后台提前刷新（refresh-ahead），期间继续使用缓存值
+ * - 提供用户加载租约（auth:load-lease:{username}），缓存集中过期时集群内只有一个节点查询数据库
+ * - Redis 中保存二进制快照（{@link PermissionSnapshotCodec}），权限按全局字典编码为 ID
+ * - Redis 调用经过 {@link RedisCircuitBreaker}，熔断期间只使用 L1，未命中按缓存未命中处理，不等待 Redis 超时
  */
 @Service
 @Slf4j
-public class PermissionCacheService {
+public class PermissionCacheService implements MessageListener {
 
+    public static final String CHANNEL = "auth:events:permission-evict";
+    public static final String ROLE_CHANNEL = "auth:events:role-evict";
     private static final String KEY_PREFIX = "auth:permissions:";
-    private static final Duration DEFAULT_TTL = Duration.ofHours(1); // 与 JWT 有效期保持一致
+    private static final String ROLE_KEY_PREFIX = "auth:role-permissions:";
+    private static final Duration DEFAULT_TTL = Duration.ofHours(1); // 覆盖多次访问令牌刷新，刷新时直接复用（抖动前的上限）
+    private static final int ROLE_CACHE_SIZE = 1_000;
+    private static final String LOAD_LEASE_PREFIX = "auth:load-lease:";
+    // 租约有效期覆盖一次数据库加载；加载者异常退出时租约自动过期
+    private static final Duration LOAD_LEASE_TTL = Duration.ofSeconds(5);
+    private static final Duration LOAD_LEASE_WAIT = Duration.ofSeconds(2);
+    private static final long LOAD_POLL_INTERVAL_MS = 50;
+
+    /**
+     * 仅当租约仍属于自己时释放
+     */
+    private static final RedisScript<Long> RELEASE_LEASE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
 
     private final StringRedisTemplate redisTemplate;
-    private final ObjectMapper objectMapper;
+    private final AuthorityDictionary authorityDictionary;
+    private final RedisCircuitBreaker circuitBreaker;
+    // L1：用户名 -> 用户详情（不含密码）；TTL 兜底丢失的失效广播
+    private final Cache<String, LocalEntry> localCache;
+    // L1：角色ID -> 角色的权限集合
+    private final Cache<Long, List<GrantedAuthority>> roleCache;
+    // 每清理一次角色加一，用户详情合并时的值与当前值不同则需重新合并
+    private final AtomicLong roleGeneration = new AtomicLong();
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder redisMisses = new LongAdder();
+    // TTL 在 [DEFAULT_TTL * (1 - ttlJitter), DEFAULT_TTL] 内随机
+    private final double ttlJitter;
+    // 条目写入超过该时间（秒）后提前刷新；取最短可能 TTL 的比例，保证在过期前刷新。0 表示关闭
+    private final long refreshAheadAfterSeconds;
 
-    public PermissionCacheService(StringRedisTemplate redisTemplate, ObjectMapper objectMapper) {
+    public PermissionCacheService(StringRedisTemplate redisTemplate,
+                                  AuthorityDictionary authorityDictionary,
+                                  RedisCircuitBreaker circuitBreaker,
+                                  @Value("${authvs.permission-cache.local-size:10000}") long localSize,
+                                  @Value("${authvs.permission-cache.local-ttl:60s}") Duration localTtl,
+                                  @Value("${authvs.permission-cache.ttl-jitter:0.2}") double ttlJitter,
+                                  @Value("${authvs.permission-cache.refresh-ahead:0.75}") double refreshAhead) {
+        if (ttlJitter < 0 || ttlJitter >= 1) {
+            throw new IllegalArgumentException("authvs.permission-cache.ttl-jitter must be in [0, 1)");
+        }
         this.redisTemplate = redisTemplate;
-        this.objectMapper = objectMapper;
+        this.authorityDictionary = authorityDictionary;
+        this.circuitBreaker = circuitBreaker;
+        this.ttlJitter = ttlJitter;
+        this.refreshAheadAfterSeconds = refreshAhead > 0 && refreshAhead < 1
+                ? Math.max(1, (long) (DEFAULT_TTL.toSeconds() * (1 - ttlJitter) * refreshAhead)) : 0;
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(localSize)
+                .expireAfterWrite(localTtl)
+                .recordStats()
+                .build();
+        this.roleCache = Caffeine.newBuilder()
+                .maximumSize(ROLE_CACHE_SIZE)
+                .expireAfterWrite(localTtl)
+                .build();
+    }
+
+    /**
+     * 读取用户详情：L1 命中直接返回，否则读 Redis 并回填 L1
+     *
+     * @param username 用户名
+     * @return 用户详情（密码为空），缓存未命中或所需的角色条目已被清理时返回 empty
+     */
+    public Optional<CustomUserDetails> getUserDetails(String username) {
+        return getUserDetails(username, null);
+    }
+
+    /**
+     * 读取用户详情，Redis 中的条目接近过期时回调 refreshAhead（由调用方在后台重新加载），本次仍返回缓存值
+     *
+     * @param username     用户名
+     * @param refreshAhead 提前刷新回调，参数为用户名；为 null 时不提前刷新
+     * @return 用户详情（密码为空），缓存未命中或所需的角色条目已被清理时返回 empty
+     */
+    public Optional<CustomUserDetails> getUserDetails(String username, Consumer<String> refreshAhead) {
+        if (!StringUtils.hasText(username)) {
+            return Optional.empty();
+        }
+        long generation = roleGeneration.get();
+        LocalEntry local = localCache.getIfPresent(username);
+        if (local != null) {
+            if (local.generation() == generation) {
+                return Optional.of(local.details());
+            }
+            // 期间有角色被清理：用已缓存的用户信息重新合并角色权限
+            CustomUserDetails recomposed = recompose(local.details());
+            if (recomposed != null) {
+                localCache.put(username, new LocalEntry(recomposed, generation));
+                return Optional.of(recomposed);
+            }
+        }
+        Optional<Snapshot> cached = readSnapshot(username);
+        if (cached.isEmpty()) {
+            localCache.invalidate(username);
+            redisMisses.increment();
+            return Optional.empty();
+        }
+        redisHits.increment();
+        CustomUserDetails details = cached.get().details();
+        localCache.put(username, new LocalEntry(details, generation));
+        if (refreshAhead != null && refreshAheadAfterSeconds > 0
+                && System.currentTimeMillis() / 1000 - cached.get().cachedAt() >= refreshAheadAfterSeconds) {
+            refreshAhead.accept(username);
+        }
+        return Optional.of(details);
+    }
+
+    /**
+     * 只读取 Redis 中的用户快照（不经过用户 L1），并合并其角色的权限
+     */
+    public Optional<CustomUserDetails> getByUsername(String username) {
+        return readSnapshot(username).map(Snapshot::details);
     }
 
-    public Optional<PermissionCacheVO> getByUsername(String username) {
+    private Optional<Snapshot> readSnapshot(String username) {
         if (!StringUtils.hasText(username)) {
             return Optional.empty();
         }
         String key = KEY_PREFIX + username;
-        return readFromRedis(key);
+        byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+        try {
+            byte[] cached = circuitBreaker.call(() -> redisTemplate.execute(
+                    (RedisCallback<byte[]>) connection -> connection.stringCommands().get(rawKey)));
+            if (cached == null || !PermissionSnapshotCodec.isCurrent(cached)) {
+                // 旧版快照不含角色ID，按未命中处理，从数据库加载后覆盖
+                return Optional.empty();
+            }
+            PermissionSnapshotCodec.UserSnapshot user = PermissionSnapshotCodec.decodeUser(cached);
+            List<GrantedAuthority> authorities = composeAuthorities(user.roleIds());
+            return authorities != null
+                    ? Optional.of(new Snapshot(user.toUserDetails(authorities), user.cachedAt()))
+                    : Optional.empty();
+        } catch (IllegalArgumentException e) {
+            log.warn("Failed to decode permission cache for key={}, clearing it", key, e);
+            deleteQuietly(key);
+            return Optional.empty();
+        } catch (RedisCircuitBreaker.OpenException e) {
+            return Optional.empty();
+        } catch (DataAccessException e) {
+            log.warn("Redis unavailable when reading cache key={}", key, e);
+            return Optional.empty();
+        }
     }
 
-    public void cachePermissions(CustomUserDetails details) {
-        if (details == null || details.getId() == null) {
+    /**
+     * 写入两级缓存：用户快照和其各角色的权限集合
+     *
+     * @param details          从数据库加载的用户详情（含角色ID）
+     * @param roleAuthorities  角色ID -> 该角色提供的权限
+     */
+    public void cachePermissions(CustomUserDetails details,
+                                 Map<Long, ? extends Collection<? extends GrantedAuthority>> roleAuthorities) {
+        if (details == null || details.getId() == null || !StringUtils.hasText(details.getUsername())) {
             return;
         }
-        List<String> authorities = details.getAuthorities().stream()
-                .map(GrantedAuthority::getAuthority)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
-
-        PermissionCacheVO cacheVO = new PermissionCacheVO(
-                details.getId(),
-                details.getUsername(),
-                details.getEmail(),
-                details.getPhone(),
-                details.getUserType(),
-                details.isEnabled(),
-                authorities,
-                System.currentTimeMillis()
-        );
+        byte[] snapshot = encodeSnapshot(details);
+        if (snapshot == null) {
+            return;
+        }
+        for (Map.Entry<Long, ? extends Collection<? extends GrantedAuthority>> role : roleAuthorities.entrySet()) {
+            roleCache.put(role.getKey(), role.getValue().stream()
+                    .map(authority -> AuthorityIndex.authority(authority.getAuthority()))
+                    .toList());
+        }
+        if (circuitBreaker.isOpen()) {
+            cacheLocally(details);
+            return;
+        }
+        List<byte[][]> entries = new ArrayList<>(roleAuthorities.size() + 1);
         try {
-            String json = objectMapper.writeValueAsString(cacheVO);
-            if (StringUtils.hasText(details.getUsername())) {
-                String key = KEY_PREFIX + details.getUsername();
-                redisTemplate.opsForValue().set(key, json, DEFAULT_TTL);
+            for (Map.Entry<Long, ? extends Collection<? extends GrantedAuthority>> role : roleAuthorities.entrySet()) {
+                entries.add(new byte[][]{roleKey(role.getKey()).getBytes(StandardCharsets.UTF_8),
+                        PermissionSnapshotCodec.encodeRole(role.getValue(), authorityDictionary)});
             }
-        } catch (JsonProcessingException e) {
-            log.warn("Failed to serialize permission cache for userId={}", details.getId(), e);
         } catch (DataAccessException e) {
             log.warn("Redis unavailable, skip caching permissions for userId={}", details.getId(), e);
+            cacheLocally(details);
+            return;
+        }
+        entries.add(new byte[][]{cacheKey(details.getUsername()).getBytes(StandardCharsets.UTF_8), snapshot});
+        cacheLocally(details);
+        try {
+            circuitBreaker.call(() -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (byte[][] entry : entries) {
+                    connection.stringCommands().set(entry[0], entry[1], Expiration.from(nextTtl()),
+                            RedisStringCommands.SetOption.upsert());
+                }
+                return null;
+            }));
+        } catch (DataAccessException e) {
+            log.warn("Redis unavailable, skip caching permissions for userId={}", details.getId(), e);
+        }
+    }
+
+    /**
+     * 只写入 L1（Redis 已由登录脚本写入）
+     */
+    public void cacheLocally(CustomUserDetails details) {
+        if (details == null || !StringUtils.hasText(details.getUsername())) {
+            return;
+        }
+        localCache.put(details.getUsername(), new LocalEntry(withoutPassword(details), roleGeneration.get()));
+    }
+
+    /**
+     * 编码用户快照，供登录脚本与会话信息一起原子写入
+     *
+     * @return 二进制快照；用户详情不含角色ID时返回 null（不写入 Redis）
+     */
+    public byte[] encodeSnapshot(CustomUserDetails details) {
+        if (details.getId() == null || details.getRoleIds() == null) {
+            return null;
+        }
+        return PermissionSnapshotCodec.encodeUser(details);
+    }
+
+    /**
+     * 尝试获取用户的加载租约（SET NX PX），集群内同一时间只有一个节点从数据库加载该用户
+     *
+     * @return 获取成功，或 Redis 不可用（此时各节点自行加载）时返回 true；其他节点持有租约时返回 false
+     */
+    public boolean tryAcquireLoadLease(String username, String token) {
+        try {
+            return !Boolean.FALSE.equals(circuitBreaker.call(() -> redisTemplate.opsForValue()
+                    .setIfAbsent(LOAD_LEASE_PREFIX + username, token, LOAD_LEASE_TTL)));
+        } catch (RedisCircuitBreaker.OpenException e) {
+            return true;
+        } catch (DataAccessException e) {
+            log.warn("Redis unavailable, loading user {} without lease: {}", username, e.getMessage());
+            return true;
+        }
+    }
+
+    public void releaseLoadLease(String username, String token) {
+        try {
+            circuitBreaker.call(() -> redisTemplate.execute(RELEASE_LEASE_SCRIPT, List.of(LOAD_LEASE_PREFIX + username), token));
+        } catch (DataAccessException e) {
+            log.debug("Redis unavailable, load lease for user {} left to expire", username);
+        }
+    }
+
+    /**
+     * 等待持有租约的节点写入缓存
+     *
+     * @return 缓存中的用户详情；等待超时、租约已释放但缓存仍未写入（如用户不存在）时返回 empty
+     */
+    public Optional<CustomUserDetails> awaitLoadedBy(String username) {
+        long deadline = System.nanoTime() + LOAD_LEASE_WAIT.toNanos();
+        try {
+            while (System.nanoTime() < deadline) {
+                Thread.sleep(LOAD_POLL_INTERVAL_MS);
+                Optional<CustomUserDetails> loaded = getByUsername(username);
+                if (loaded.isPresent()) {
+                    redisHits.increment();
+                    localCache.put(username, new LocalEntry(loaded.get(), roleGeneration.get()));
+                    return loaded;
+                }
+                if (!Boolean.TRUE.equals(circuitBreaker.call(() -> redisTemplate.hasKey(LOAD_LEASE_PREFIX + username)))) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (DataAccessException e) {
+            log.warn("Redis unavailable while waiting for user {} to be loaded: {}", username, e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    public static String cacheKey(String username) {
+        return KEY_PREFIX + username;
+    }
+
+    public static String roleKey(Long roleId) {
+        return ROLE_KEY_PREFIX + roleId;
+    }
+
+    /**
+     * 下一个写入条目的 TTL（带随机抖动）
+     */
+    public Duration nextTtl() {
+        if (ttlJitter == 0) {
+            return DEFAULT_TTL;
         }
+        long millis = DEFAULT_TTL.toMillis();
+        return Duration.ofMillis(millis - (long) (millis * ttlJitter * ThreadLocalRandom.current().nextDouble()));
     }
 
+    /**
+     * 用户信息或角色分配变更时清理该用户的缓存
+     */
     public void clearCache(String username) {
         if (!StringUtils.hasText(username)) {
             return;
         }
+        localCache.invalidate(username);
         try {
             String key = KEY_PREFIX + username;
-            redisTemplate.delete(key);
+            circuitBreaker.call(() -> {
+                redisTemplate.delete(key);
+                return redisTemplate.convertAndSend(CHANNEL, username);
+            });
         } catch (DataAccessException e) {
             log.warn("Redis unavailable, skip clearing permission cache for username={}", username, e);
         }
     }
 
-    private Optional<PermissionCacheVO> readFromRedis(String key) {
+    /**
+     * 角色启用状态或其权限变更时清理该角色的缓存，持有该角色的用户在下次访问时重新合并权限
+     */
+    public void evictRole(Long roleId) {
+        if (roleId == null) {
+            return;
+        }
+        evictRoleLocally(roleId);
         try {
-            String cached = redisTemplate.opsForValue().get(key);
-            if (!StringUtils.hasText(cached)) {
-                return Optional.empty();
-            }
-            PermissionCacheVO vo = objectMapper.readValue(cached, PermissionCacheVO.class);
-            return Optional.of(vo);
-        } catch (JsonProcessingException e) {
-            log.warn("Failed to deserialize permission cache for key={}, clearing it", key, e);
+            circuitBreaker.call(() -> {
+                redisTemplate.delete(roleKey(roleId));
+                return redisTemplate.convertAndSend(ROLE_CHANNEL, String.valueOf(roleId));
+            });
+        } catch (DataAccessException e) {
+            log.warn("Redis unavailable, skip clearing permission cache for roleId={}", roleId, e);
+        }
+    }
+
+    /**
+     * 其他节点清理缓存时，同步清理本节点的 L1
+     */
+    @Override
+    public void onMessage(@NonNull Message message, byte @Nullable [] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (ROLE_CHANNEL.equals(new String(message.getChannel(), StandardCharsets.UTF_8))) {
             try {
-                redisTemplate.delete(key);
-            } catch (DataAccessException ex) {
-                log.warn("Redis unavailable while clearing corrupted cache key={}", key, ex);
+                evictRoleLocally(Long.parseLong(body));
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring malformed role evict event: {}", body);
             }
-            return Optional.empty();
+        } else {
+            localCache.invalidate(body);
+        }
+    }
+
+    public CacheStats getLocalStats() {
+        return localCache.stats();
+    }
+
+    public long getLocalSize() {
+        return localCache.estimatedSize();
+    }
+
+    public long getRedisHits() {
+        return redisHits.sum();
+    }
+
+    public long getRedisMisses() {
+        return redisMisses.sum();
+    }
+
+    private void evictRoleLocally(long roleId) {
+        roleCache.invalidate(roleId);
+        roleGeneration.incrementAndGet();
+    }
+
+    /**
+     * 用已缓存的用户信息重新合并角色权限，所需角色条目已不存在时返回 null
+     */
+    private CustomUserDetails recompose(CustomUserDetails details) {
+        if (details.getRoleIds() == null) {
+            return null;
+        }
+        try {
+            List<GrantedAuthority> authorities = composeAuthorities(details.getRoleIds());
+            return authorities != null ? new CustomUserDetails(details.getId(), details.getUsername(), "",
+                    details.getEmail(), details.getPhone(), details.getUserType(), details.isEnabled(),
+                    details.getRoleIds(), authorities) : null;
+        } catch (RedisCircuitBreaker.OpenException e) {
+            return null;
         } catch (DataAccessException e) {
-            log.warn("Redis unavailable when reading cache key={}", key, e);
-            return Optional.empty();
+            log.warn("Redis unavailable when composing permissions for username={}", details.getUsername(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 合并各角色的权限：先查角色 L1，未命中的角色一次 MGET 从 Redis 读取
+     *
+     * @return 合并后的权限（可能有重复，由 CustomUserDetails 去重）；任一角色条目不存在时返回 null
+     */
+    private List<GrantedAuthority> composeAuthorities(List<Long> roleIds) {
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        List<Long> missing = null;
+        for (Long roleId : roleIds) {
+            List<GrantedAuthority> cached = roleCache.getIfPresent(roleId);
+            if (cached != null) {
+                authorities.addAll(cached);
+            } else {
+                if (missing == null) {
+                    missing = new ArrayList<>();
+                }
+                missing.add(roleId);
+            }
+        }
+        if (missing == null) {
+            return authorities;
+        }
+        byte[][] keys = missing.stream()
+                .map(roleId -> roleKey(roleId).getBytes(StandardCharsets.UTF_8))
+                .toArray(byte[][]::new);
+        List<byte[]> values = circuitBreaker.call(() -> redisTemplate.execute(
+                (RedisCallback<List<byte[]>>) connection -> connection.stringCommands().mGet(keys)));
+        if (values == null) {
+            return null;
+        }
+        for (int i = 0; i < missing.size(); i++) {
+            byte[] value = values.get(i);
+            if (value == null || !PermissionSnapshotCodec.isCurrent(value)) {
+                return null;
+            }
+            List<GrantedAuthority> role;
+            try {
+                role = PermissionSnapshotCodec.decodeRole(value, authorityDictionary);
+            } catch (IllegalArgumentException e) {
+                log.warn("Failed to decode role permissions for roleId={}, clearing it", missing.get(i), e);
+                deleteQuietly(roleKey(missing.get(i)));
+                return null;
+            }
+            roleCache.put(missing.get(i), role);
+            authorities.addAll(role);
+        }
+        return authorities;
+    }
+
+    private void deleteQuietly(String key) {
+        try {
+            circuitBreaker.call(() -> redisTemplate.delete(key));
+        } catch (DataAccessException ex) {
+            log.warn("Redis unavailable while clearing corrupted cache key={}", key, ex);
+        }
+    }
+
+    private static CustomUserDetails withoutPassword(CustomUserDetails details) {
+        if (details.getPassword() == null || details.getPassword().isEmpty()) {
+            return details;
         }
+        return new CustomUserDetails(
+                details.getId(),
+                details.getUsername(),
+                "",
+                details.getEmail(),
+                details.getPhone(),
+                details.getUserType(),
+                details.isEnabled(),
+                details.getRoleIds(),
+                details.getAuthorities()
+        );
+    }
+
+    /**
+     * Redis 中的用户快照及其写入时间（秒）
+     */
+    private record Snapshot(CustomUserDetails details, long cachedAt) {
+    }
+
+    /**
+     * L1 条目：用户详情及合并其权限时的角色清理计数
+     */
+    private record LocalEntry(CustomUserDetails details, long generation) {
     }
 }
@@ -0,0 +1,366 @@
+package org.max.authvs.security;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 权限缓存二进制编码
+ * <p>
+ * 用户快照（auth:permissions:{username}）只记录用户信息和角色ID，角色的权限集合单独缓存（auth:role-permissions:{roleId}），
+ * 读取时再合并，角色权限变更只需清理一个角色条目。格式（除 magic 外均为无符号 varint，字符串为 varint 长度 + UTF-8）：
+ * <pre>
+ * 用户：magic(0xA7) | 格式版本 | flags | userId | [userType] | username | [email] | [phone] | cachedAt(秒) | 角色数 | 升序角色ID差值
+ * 角色：magic(0xA7) | 格式版本 | 字典版本 | cachedAt(秒) | 权限编码(0 ID 列表 / 1 位图) | 数据
+ * </pre>
+ * - ID 列表：数量 + 升序 ID 的差值；位图：long 个数 + 每个 long 8 字节小端，编码时取较短的一种
+ * - 权限 ID 来自 {@link AuthorityDictionary}，解码时本地字典低于快照中的字典版本则先重新加载
+ * - 格式版本不一致（包括旧版直接记录用户全部权限的快照）时按未命中处理，由数据库重新加载后覆盖
+ */
+final class PermissionSnapshotCodec {
+
+    static final byte MAGIC = (byte) 0xA7;
+    private static final int FORMAT_VERSION = 2;
+    private static final int ENCODING_IDS = 0;
+    private static final int ENCODING_BITSET = 1;
+    private static final int FLAG_ENABLED = 1;
+    private static final int FLAG_USER_TYPE = 1 << 1;
+    private static final int FLAG_EMAIL = 1 << 2;
+    private static final int FLAG_PHONE = 1 << 3;
+
+    private PermissionSnapshotCodec() {
+    }
+
+    /**
+     * 是否为当前格式版本的快照
+     */
+    static boolean isCurrent(byte[] data) {
+        return data.length > 1 && data[0] == MAGIC && data[1] == FORMAT_VERSION;
+    }
+
+    /**
+     * 编码用户快照，角色ID为 null 的用户详情不能编码
+     */
+    static byte[] encodeUser(CustomUserDetails details) {
+        List<Long> roleIds = details.getRoleIds();
+        if (roleIds == null) {
+            throw new IllegalArgumentException("User details without role ids cannot be cached");
+        }
+        long[] sorted = new long[roleIds.size()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = roleIds.get(i);
+        }
+        Arrays.sort(sorted);
+        int flags = (details.isEnabled() ? FLAG_ENABLED : 0)
+                | (details.getUserType() != null ? FLAG_USER_TYPE : 0)
+                | (details.getEmail() != null ? FLAG_EMAIL : 0)
+                | (details.getPhone() != null ? FLAG_PHONE : 0);
+        Writer out = new Writer(64 + sorted.length * 2);
+        out.writeByte(MAGIC);
+        out.writeVarint(FORMAT_VERSION);
+        out.writeVarint(flags);
+        out.writeVarint(details.getId());
+        if (details.getUserType() != null) {
+            out.writeVarint(details.getUserType());
+        }
+        out.writeString(details.getUsername());
+        if (details.getEmail() != null) {
+            out.writeString(details.getEmail());
+        }
+        if (details.getPhone() != null) {
+            out.writeString(details.getPhone());
+        }
+        out.writeVarint(System.currentTimeMillis() / 1000);
+        out.writeVarint(sorted.length);
+        long previous = 0;
+        for (long roleId : sorted) {
+            // 重复的角色ID写为差值 0，解码后由 CustomUserDetails 按权限去重
+            out.writeVarint(roleId - previous);
+            previous = roleId;
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 解码用户快照
+     *
+     * @throws IllegalArgumentException 格式错误或版本不支持
+     */
+    static UserSnapshot decodeUser(byte[] data) {
+        Reader in = header(data);
+        int flags = (int) in.readVarint();
+        long userId = in.readVarint();
+        Integer userType = (flags & FLAG_USER_TYPE) != 0 ? (int) in.readVarint() : null;
+        String username = in.readString();
+        String email = (flags & FLAG_EMAIL) != 0 ? in.readString() : null;
+        String phone = (flags & FLAG_PHONE) != 0 ? in.readString() : null;
+        long cachedAt = in.readVarint();
+        Long[] roleIds = new Long[in.readLength()];
+        long roleId = 0;
+        for (int i = 0; i < roleIds.length; i++) {
+            roleId += in.readVarint();
+            roleIds[i] = roleId;
+        }
+        return new UserSnapshot(userId, username, email, phone, userType, (flags & FLAG_ENABLED) != 0,
+                List.of(roleIds), cachedAt);
+    }
+
+    /**
+     * 编码角色的权限集合，未注册的权限会先写入字典
+     */
+    static byte[] encodeRole(Collection<? extends GrantedAuthority> granted, AuthorityDictionary dictionary) {
+        int[] ids = new int[granted.size()];
+        int count = 0;
+        for (GrantedAuthority authority : granted) {
+            if (authority.getAuthority() != null) {
+                ids[count++] = dictionary.idOf(authority.getAuthority());
+            }
+        }
+        Arrays.sort(ids, 0, count);
+        count = dedupe(ids, count);
+
+        Writer out = new Writer(16 + count * 2);
+        out.writeByte(MAGIC);
+        out.writeVarint(FORMAT_VERSION);
+        out.writeVarint(dictionary.version());
+        out.writeVarint(System.currentTimeMillis() / 1000);
+
+        int maxId = count > 0 ? ids[count - 1] : -1;
+        int words = (maxId >> 6) + 1;
+        if (count > 0 && words * Long.BYTES < idListSize(ids, count)) {
+            out.writeVarint(ENCODING_BITSET);
+            out.writeVarint(words);
+            long[] bits = new long[words];
+            for (int i = 0; i < count; i++) {
+                bits[ids[i] >> 6] |= 1L << ids[i];
+            }
+            for (long word : bits) {
+                out.writeLong(word);
+            }
+        } else {
+            out.writeVarint(ENCODING_IDS);
+            out.writeVarint(count);
+            int previous = 0;
+            for (int i = 0; i < count; i++) {
+                out.writeVarint(ids[i] - previous);
+                previous = ids[i];
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 解码角色的权限集合，权限直接复用共享实例
+     *
+     * @throws IllegalArgumentException 格式错误、版本不支持或含有字典中不存在的权限 ID
+     */
+    static List<GrantedAuthority> decodeRole(byte[] data, AuthorityDictionary dictionary) {
+        Reader in = header(data);
+        long dictionaryVersion = in.readVarint();
+        if (!dictionary.ensureVersion(dictionaryVersion)) {
+            throw new IllegalArgumentException("Authority dictionary behind snapshot version " + dictionaryVersion);
+        }
+        in.readVarint(); // cachedAt，仅用于排查
+
+        GrantedAuthority[] authorities;
+        int encoding = (int) in.readVarint();
+        if (encoding == ENCODING_IDS) {
+            authorities = new GrantedAuthority[in.readLength()];
+            int id = 0;
+            for (int i = 0; i < authorities.length; i++) {
+                id += (int) in.readVarint();
+                authorities[i] = lookup(dictionary, id);
+            }
+        } else if (encoding == ENCODING_BITSET) {
+            long[] bits = new long[in.readLength()];
+            int count = 0;
+            for (int i = 0; i < bits.length; i++) {
+                bits[i] = in.readLong();
+                count += Long.bitCount(bits[i]);
+            }
+            authorities = new GrantedAuthority[count];
+            int n = 0;
+            for (int i = 0; i < bits.length; i++) {
+                for (long word = bits[i]; word != 0; word &= word - 1) {
+                    authorities[n++] = lookup(dictionary, (i << 6) + Long.numberOfTrailingZeros(word));
+                }
+            }
+        } else {
+            throw new IllegalArgumentException("Unknown authority encoding " + encoding);
+        }
+        return List.of(authorities);
+    }
+
+    private static Reader header(byte[] data) {
+        Reader in = new Reader(data);
+        if (in.readByte() != MAGIC) {
+            throw new IllegalArgumentException("Not a binary permission snapshot");
+        }
+        long formatVersion = in.readVarint();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported snapshot format version " + formatVersion);
+        }
+        return in;
+    }
+
+    private static GrantedAuthority lookup(AuthorityDictionary dictionary, int id) {
+        GrantedAuthority authority = dictionary.authorityOf(id);
+        if (authority == null) {
+            throw new IllegalArgumentException("Unknown authority id " + id);
+        }
+        return authority;
+    }
+
+    private static int dedupe(int[] sorted, int count) {
+        if (count == 0) {
+            return 0;
+        }
+        int n = 1;
+        for (int i = 1; i < count; i++) {
+            if (sorted[i] != sorted[n - 1]) {
+                sorted[n++] = sorted[i];
+            }
+        }
+        return n;
+    }
+
+    private static int idListSize(int[] sorted, int count) {
+        int size = varintSize(count);
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            size += varintSize(sorted[i] - previous);
+            previous = sorted[i];
+        }
+        return size;
+    }
+
+    private static int varintSize(long value) {
+        return Math.max(1, (64 - Long.numberOfLeadingZeros(value) + 6) / 7);
+    }
+
+    private static final class Writer {
+        private byte[] buf;
+        private int pos;
+
+        Writer(int capacity) {
+            buf = new byte[capacity];
+        }
+
+        void writeByte(int b) {
+            ensure(1);
+            buf[pos++] = (byte) b;
+        }
+
+        void writeVarint(long value) {
+            if (value < 0) {
+                throw new IllegalArgumentException("Negative value in permission snapshot: " + value);
+            }
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[pos++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            ensure(Long.BYTES);
+            for (int i = 0; i < Long.BYTES; i++) {
+                buf[pos++] = (byte) (value >>> (i * 8));
+            }
+        }
+
+        void writeString(String value) {
+            byte[] bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, pos, bytes.length);
+            pos += bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+
+        private void ensure(int n) {
+            if (pos + n > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + n));
+            }
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buf;
+        private int pos;
+
+        Reader(byte[] buf) {
+            this.buf = buf;
+        }
+
+        byte readByte() {
+            require(1);
+            return buf[pos++];
+        }
+
+        long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in permission snapshot");
+        }
+
+        /**
+         * 读取数组长度，不超过剩余字节数，避免损坏数据导致超大分配
+         */
+        int readLength() {
+            long length = readVarint();
+            if (length > buf.length - pos) {
+                throw new IllegalArgumentException("Truncated permission snapshot");
+            }
+            return (int) length;
+        }
+
+        long readLong() {
+            require(Long.BYTES);
+            long value = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                value |= (buf[pos++] & 0xFFL) << (i * 8);
+            }
+            return value;
+        }
+
+        String readString() {
+            int length = readLength();
+            String value = new String(buf, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return value;
+        }
+
+        private void require(int n) {
+            if (pos + n > buf.length) {
+                throw new IllegalArgumentException("Truncated permission snapshot");
+            }
+        }
+    }
+
+    /**
+     * 解码后的用户快照，权限由角色合并得到
+     *
+     * @param cachedAt 写入时间（秒），用于判断是否需要提前刷新
+     */
+    record UserSnapshot(Long id, String username, String email, String phone, Integer userType,
+                        boolean enabled, List<Long> roleIds, long cachedAt) {
+
+        CustomUserDetails toUserDetails(Collection<? extends GrantedAuthority> authorities) {
+            return new CustomUserDetails(id, username, "", email, phone, userType, enabled, roleIds, authorities);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package org.max.authvs.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.max.authvs.config.SchedulingConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 认证路径上 Redis 调用的熔断器
+ * <p>
+ * - 连续 N 次连接失败或超时后打开，之后的调用直接抛出 {@link OpenException}，不再等待 Lettuce 超时（默认 2 秒）
+ * - 打开期间调用方走降级逻辑：权限读本地 L1、纪元用本地最后已知值、撤销检查按配置的失败策略处理
+ * - 后台定时 PING 探测（独立调度线程，不受其他阻塞在 Redis 上的定时任务影响），成功后关闭熔断器并发布
+ *   {@link RecoveredEvent}，各组件据此重新同步本地状态
+ * - 只有连接类异常计入失败；脚本错误等业务异常说明 Redis 可用，不影响熔断状态
+ */
+@Slf4j
+@Component
+public class RedisCircuitBreaker {
+
+    private final StringRedisTemplate redisTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int failureThreshold;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final LongAdder shortCircuited = new LongAdder();
+    private volatile boolean open;
+
+    public RedisCircuitBreaker(StringRedisTemplate redisTemplate,
+                               ApplicationEventPublisher eventPublisher,
+                               @Value("${authvs.redis.circuit-breaker.failure-threshold:3}") int failureThreshold) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("authvs.redis.circuit-breaker.failure-threshold must be positive");
+        }
+        this.redisTemplate = redisTemplate;
+        this.eventPublisher = eventPublisher;
+        this.failureThreshold = failureThreshold;
+    }
+
+    /**
+     * 经熔断器执行 Redis 调用
+     *
+     * @throws OpenException       熔断器打开时立即抛出（不访问 Redis）
+     * @throws DataAccessException Redis 调用失败时原样抛出
+     */
+    public <T> T call(Supplier<T> action) {
+        if (open) {
+            shortCircuited.increment();
+            throw new OpenException();
+        }
+        try {
+            T result = action.get();
+            consecutiveFailures.set(0);
+            return result;
+        } catch (DataAccessException e) {
+            if (isConnectionFailure(e)) {
+                recordFailure(e);
+            }
+            throw e;
+        }
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * 熔断器打开期间被直接拒绝的调用次数
+     */
+    public long getShortCircuited() {
+        return shortCircuited.sum();
+    }
+
+    /**
+     * 熔断器打开时定期探测 Redis，PING 成功即关闭
+     */
+    @Scheduled(fixedDelayString = "${authvs.redis.circuit-breaker.probe-interval:1s}",
+            initialDelayString = "${authvs.redis.circuit-breaker.probe-interval:1s}",
+            scheduler = SchedulingConfig.REDIS_PROBE_SCHEDULER)
+    public void probe() {
+        if (!open) {
+            return;
+        }
+        try {
+            redisTemplate.execute((RedisCallback<String>) RedisConnection::ping);
+        } catch (DataAccessException e) {
+            log.debug("Redis probe failed: {}", e.getMessage());
+            return;
+        }
+        consecutiveFailures.set(0);
+        open = false;
+        log.info("Redis reachable again, circuit breaker closed");
+        eventPublisher.publishEvent(new RecoveredEvent());
+    }
+
+    private void recordFailure(DataAccessException e) {
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold && !open) {
+            open = true;
+            log.warn("Redis circuit breaker opened after {} consecutive failures: {}", failureThreshold, e.getMessage());
+        }
+    }
+
+    private static boolean isConnectionFailure(DataAccessException e) {
+        return e instanceof DataAccessResourceFailureException || e instanceof QueryTimeoutException;
+    }
+
+    /**
+     * 熔断器打开时抛出的异常；不记录堆栈，调用方按 Redis 不可用处理
+     */
+    public static final class OpenException extends DataAccessResourceFailureException {
+
+        private OpenException() {
+            super("Redis circuit breaker is open");
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    /**
+     * 熔断器关闭（Redis 恢复可用）事件
+     */
+    public record RecoveredEvent() {
+    }
+}
@@ -0,0 +1,194 @@
+package org.max.authvs.security;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.max.authvs.exception.InvalidTokenException;
+import org.max.authvs.exception.TokenRevokedException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * 刷新令牌服务
+ * <p>
+ * - 刷新令牌是随机的不透明字符串，Redis 只保存其 SHA-256 摘要（auth:refresh:{digest}）
+ * - 每次登录创建一个令牌族（family），族指针（auth:refresh:family:{familyId}）指向族内当前有效的令牌
+ * - 每次刷新都会轮换：签发新令牌并移动族指针，旧令牌随即作废
+ * - 已作废的旧令牌再次出现说明令牌可能被窃取（重放），直接删除族指针，整个族失效
+ * - 同一设备类型只保留一个族，重新登录时旧族失效；用户纪元递增后族内令牌同样失效
+ */
+@Slf4j
+@Service
+public class RefreshTokenService {
+
+    private static final String REFRESH_PREFIX = "auth:refresh:";
+    static final String FAMILY_PREFIX = "auth:refresh:family:";
+    private static final String USER_DEVICE_PREFIX = "auth:user:";
+    private static final int TOKEN_BYTES = 32;
+    private static final int FAMILY_ID_BYTES = 12;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * 原子轮换：族指针仍指向旧令牌时才移动到新令牌并写入新令牌记录
+     * 返回 1 轮换成功；0 旧令牌已被使用过（重放），族被删除；-1 族不存在
+     */
+    private static final RedisScript<Long> ROTATE_SCRIPT = new DefaultRedisScript<>("""
+            local current = redis.call('GET', KEYS[1])
+            if not current then
+                return -1
+            end
+            if current ~= ARGV[1] then
+                redis.call('DEL', KEYS[1])
+                return 0
+            end
+            redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[4])
+            redis.call('SET', KEYS[2], ARGV[3], 'PX', ARGV[4])
+            return 1
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final TokenEpochService tokenEpochService;
+    private final Duration ttl;
+
+    public RefreshTokenService(StringRedisTemplate redisTemplate,
+                               ObjectMapper objectMapper,
+                               TokenEpochService tokenEpochService,
+                               @Value("${authvs.jwt.refresh-token-ttl:7d}") Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.tokenEpochService = tokenEpochService;
+        this.ttl = ttl;
+    }
+
+    /**
+     * 登录时生成新的令牌族，由 {@link JwtService} 的登录脚本与设备会话一起原子写入
+     * 写入时同时使该设备类型上的旧族失效
+     */
+    public NewFamily newFamily() {
+        String token = randomString(TOKEN_BYTES);
+        return new NewFamily(randomString(FAMILY_ID_BYTES), token, JwtService.digest(token));
+    }
+
+    /**
+     * 使用刷新令牌换取新的刷新令牌
+     *
+     * @param refreshToken 刷新令牌原文
+     * @return 令牌记录及轮换后的新刷新令牌
+     * @throws InvalidTokenException 令牌不存在或已过期
+     * @throws TokenRevokedException 令牌族已失效、令牌被重放或用户纪元已递增
+     */
+    public Rotation rotate(String refreshToken) {
+        String digest = JwtService.digest(refreshToken);
+        String json = redisTemplate.opsForValue().get(recordKey(digest));
+        if (json == null) {
+            throw new InvalidTokenException("auth.token.invalid");
+        }
+        RefreshTokenRecord record = fromJson(json);
+        if (record.epoch() < tokenEpochService.currentEpoch(record.userId())) {
+            throw new TokenRevokedException("auth.token.revoked");
+        }
+
+        String newToken = randomString(TOKEN_BYTES);
+        String newDigest = JwtService.digest(newToken);
+        Long result = redisTemplate.execute(ROTATE_SCRIPT,
+                List.of(familyKey(record.familyId()), recordKey(newDigest)),
+                digest, newDigest, toJson(record), String.valueOf(ttl.toMillis()));
+        if (result == null || result != 1L) {
+            if (result != null && result == 0L) {
+                log.warn("Refresh token reuse detected, family {} of user {} revoked", record.familyId(), record.userId());
+            }
+            throw new TokenRevokedException("auth.token.revoked");
+        }
+        redisTemplate.expire(deviceFamilyKey(record.userId(), record.deviceType()), ttl);
+        return new Rotation(record, newToken);
+    }
+
+    /**
+     * 登出时使该设备类型上的令牌族失效
+     */
+    public void revoke(Long userId, String deviceTypeCode) {
+        String deviceKey = deviceFamilyKey(userId, deviceTypeCode);
+        String familyId = redisTemplate.opsForValue().get(deviceKey);
+        if (familyId != null) {
+            redisTemplate.delete(List.of(familyKey(familyId), deviceKey));
+        }
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    static String recordKey(String digest) {
+        return REFRESH_PREFIX + digest;
+    }
+
+    static String familyKey(String familyId) {
+        return FAMILY_PREFIX + familyId;
+    }
+
+    static String deviceFamilyKey(Long userId, String deviceTypeCode) {
+        return USER_DEVICE_PREFIX + userId + ":device:" + deviceTypeCode + ":refresh";
+    }
+
+    private static String randomString(int bytes) {
+        byte[] buf = new byte[bytes];
+        RANDOM.nextBytes(buf);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buf);
+    }
+
+    private String toJson(RefreshTokenRecord record) {
+        try {
+            return objectMapper.writeValueAsString(record);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize refresh token record", e);
+        }
+    }
+
+    private RefreshTokenRecord fromJson(String json) {
+        try {
+            return objectMapper.readValue(json, RefreshTokenRecord.class);
+        } catch (JsonProcessingException e) {
+            throw new InvalidTokenException("auth.token.invalid");
+        }
+    }
+
+    /**
+     * 刷新令牌记录，同一族内的令牌共享同一份记录
+     *
+     * @param familyId   令牌族ID
+     * @param userId     用户ID
+     * @param username   用户名
+     * @param deviceType 设备类型编码
+     * @param epoch      签发时的用户纪元
+     */
+    public record RefreshTokenRecord(String familyId, Long userId, String username, String deviceType, long epoch) {
+    }
+
+    /**
+     * 登录时新建的令牌族
+     *
+     * @param familyId     令牌族ID
+     * @param refreshToken 刷新令牌原文，返回给客户端
+     * @param digest       刷新令牌摘要，作为 Redis 键
+     */
+    public record NewFamily(String familyId, String refreshToken, String digest) {
+    }
+
+    /**
+     * 轮换结果
+     *
+     * @param record       令牌记录
+     * @param refreshToken 新的刷新令牌原文
+     */
+    public record Rotation(RefreshTokenRecord record, String refreshToken) {
+    }
+}
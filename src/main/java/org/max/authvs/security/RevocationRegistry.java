@@ -0,0 +1,178 @@
+package org.max.authvs.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 节点本地的 Token 撤销集合
+ * <p>
+ * - Redis 仍是撤销记录的权威存储（auth:revoked:{id}），本地保存一份精确副本：撤销标识 → 过期时间
+ * - 启动时从 Redis 全量加载，运行期通过 pub/sub 频道接收其他节点的撤销事件
+ * - 条目在 Token 过期时刻失效并定期清理；定期全量重新同步，弥补断线期间丢失的消息
+ * - 加载完成后，未撤销的 Token（绝大多数请求）的检查完全在 JVM 内完成，不访问 Redis
+ * - Redis 熔断期间继续使用本地集合；恢复后立即全量同步，补上期间丢失的撤销事件
+ * <p>
+ * 撤销集合只包含"尚未过期的已撤销 Token"，规模很小，直接使用 ConcurrentHashMap 做精确判断，
+ * 读操作无锁且不存在布隆过滤器的误判和删除问题。
+ */
+@Slf4j
+@Component
+public class RevocationRegistry implements MessageListener {
+
+    public static final String CHANNEL = "auth:events:revoked";
+    static final String REVOKED_PREFIX = "auth:revoked:";
+    private static final int SCAN_BATCH = 1000;
+    private static final long FULL_RESYNC_INTERVAL_MS = 5 * 60 * 1000;
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisCircuitBreaker circuitBreaker;
+    // 撤销标识（jti 或旧版 Token 摘要） -> 过期时间（毫秒时间戳）
+    private final ConcurrentHashMap<String, Long> revoked = new ConcurrentHashMap<>();
+    private volatile boolean bootstrapped;
+    private volatile long lastResyncAt;
+
+    public RevocationRegistry(StringRedisTemplate redisTemplate, RedisCircuitBreaker circuitBreaker) {
+        this.redisTemplate = redisTemplate;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * 撤销 Token：写入 Redis、加入本地集合并广播给其他节点
+     *
+     * @param id              撤销标识
+     * @param expiresAtMillis Token 过期时间
+     */
+    public void revoke(String id, long expiresAtMillis) {
+        long ttlMillis = expiresAtMillis - System.currentTimeMillis();
+        if (ttlMillis <= 0) {
+            return;
+        }
+        revoked.put(id, expiresAtMillis);
+        circuitBreaker.call(() -> {
+            redisTemplate.opsForValue().set(REVOKED_PREFIX + id, "1", ttlMillis, TimeUnit.MILLISECONDS);
+            return redisTemplate.convertAndSend(CHANNEL, id + "|" + expiresAtMillis);
+        });
+    }
+
+    /**
+     * 本地集合是否已完成加载；未完成时调用方需回退到 Redis 查询
+     */
+    public boolean isBootstrapped() {
+        return bootstrapped;
+    }
+
+    /**
+     * 在本地集合中检查撤销标识
+     */
+    public boolean isRevokedLocally(String id) {
+        Long expiresAt = revoked.get(id);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    @Override
+    public void onMessage(@NonNull Message message, byte @Nullable [] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int sep = body.lastIndexOf('|');
+        if (sep <= 0) {
+            return;
+        }
+        try {
+            long expiresAt = Long.parseLong(body.substring(sep + 1));
+            if (expiresAt > System.currentTimeMillis()) {
+                revoked.put(body.substring(0, sep), expiresAt);
+            }
+        } catch (NumberFormatException e) {
+            log.warn("Ignore malformed revocation event: {}", body);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void bootstrapOnStartup() {
+        Thread.ofVirtual().name("revocation-bootstrap").start(this::resync);
+    }
+
+    /**
+     * Redis 恢复可用后立即重新同步
+     */
+    @EventListener(RedisCircuitBreaker.RecoveredEvent.class)
+    public void resyncOnRecovery() {
+        Thread.ofVirtual().name("revocation-resync").start(this::resync);
+    }
+
+    /**
+     * 从 Redis 全量同步撤销记录
+     * 未完成首次加载时每 30 秒重试一次，完成后每 5 分钟校准一次；熔断期间跳过
+     */
+    @Scheduled(fixedDelayString = "${authvs.revocation.resync-interval:30s}", initialDelayString = "${authvs.revocation.resync-interval:30s}")
+    public void scheduledResync() {
+        if (circuitBreaker.isOpen()) {
+            return;
+        }
+        if (!bootstrapped || System.currentTimeMillis() - lastResyncAt >= FULL_RESYNC_INTERVAL_MS) {
+            resync();
+        }
+    }
+
+    private synchronized void resync() {
+        try {
+            List<String> keys = new ArrayList<>();
+            ScanOptions options = ScanOptions.scanOptions().match(REVOKED_PREFIX + "*").count(SCAN_BATCH).build();
+            try (Cursor<String> cursor = redisTemplate.scan(options)) {
+                cursor.forEachRemaining(keys::add);
+            }
+            List<Object> ttls = keys.isEmpty() ? List.of() : redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String key : keys) {
+                    connection.keyCommands().pTtl(key.getBytes(StandardCharsets.UTF_8));
+                }
+                return null;
+            });
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < keys.size(); i++) {
+                if (ttls.get(i) instanceof Long ttl && ttl > 0) {
+                    revoked.merge(toRevocationId(keys.get(i).substring(REVOKED_PREFIX.length())), now + ttl, Math::max);
+                }
+            }
+            lastResyncAt = now;
+            if (!bootstrapped) {
+                bootstrapped = true;
+                log.info("Revocation registry bootstrapped with {} entries", revoked.size());
+            }
+        } catch (DataAccessException e) {
+            log.warn("Redis unavailable, revocation registry resync skipped (bootstrapped={}): {}", bootstrapped, e.getMessage());
+        }
+    }
+
+    /**
+     * 清理已过期的撤销记录
+     */
+    @Scheduled(fixedDelay = 30, timeUnit = TimeUnit.SECONDS)
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+    }
+
+    /**
+     * 升级前按完整 Token 写入的撤销记录，转换为摘要形式的撤销标识
+     */
+    private static String toRevocationId(String suffix) {
+        return suffix.indexOf('.') < 0 ? suffix : JwtService.digest(suffix);
+    }
+}
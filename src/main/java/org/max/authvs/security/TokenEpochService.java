@@ -0,0 +1,211 @@
+package org.max.authvs.security;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import lombok.extern.slf4j.Slf4j;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户 Token 纪元（epoch）
+ * <p>
+ * - 每个用户在 Redis 中有一个递增计数器（auth:epoch:{userId}），签发 Token 时写入 ver 声明
+ * - ver 小于当前纪元的 Token 一律视为已撤销
+ * - "登出所有设备"、禁用账号、重置密码只需计数器加一，无需遍历设备键或逐个写撤销记录
+ * - 各节点在本地缓存纪元，变更通过 pub/sub 广播；缓存条目定期在后台从 Redis 刷新，兜底丢失的广播消息
+ * - Redis 熔断期间不刷新，继续使用本地最后已知的纪元；本地也没有时按 authvs.revocation.fail-open 决定是否放行
+ * - 数据库变更提交后的递增（禁用账号、修改密码）失败时不抛出，记录错误日志并在后台重试直到成功（仅本节点内存）
+ */
+@Slf4j
+@Component
+public class TokenEpochService implements MessageListener {
+
+    public static final String CHANNEL = "auth:events:epoch";
+    static final String EPOCH_PREFIX = "auth:epoch:";
+    private static final int LOCAL_CACHE_SIZE = 100_000;
+    private static final Duration LOCAL_REFRESH_INTERVAL = Duration.ofMinutes(1);
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisCircuitBreaker circuitBreaker;
+    // Redis 不可用且本地没有纪元时是否放行（true 放行，false 视为已撤销）
+    private final boolean failOpen;
+    // 用户ID -> 当前纪元；超过刷新间隔的条目在下次读取时后台刷新，刷新期间仍返回旧值
+    private final LoadingCache<Long, Long> epochs;
+    // 递增失败、等待重试的用户ID
+    private final Set<Long> pendingBumps = ConcurrentHashMap.newKeySet();
+
+    public TokenEpochService(StringRedisTemplate redisTemplate,
+                             RedisCircuitBreaker circuitBreaker,
+                             @Value("${authvs.revocation.fail-open:true}") boolean failOpen) {
+        this.redisTemplate = redisTemplate;
+        this.circuitBreaker = circuitBreaker;
+        this.failOpen = failOpen;
+        this.epochs = Caffeine.newBuilder()
+                .maximumSize(LOCAL_CACHE_SIZE)
+                .refreshAfterWrite(LOCAL_REFRESH_INTERVAL)
+                .build(new EpochLoader());
+    }
+
+    /**
+     * 获取用户当前纪元，优先读本地缓存
+     * Redis 不可用且本地无缓存时返回 0（不拦截请求），且不缓存该结果
+     */
+    public long currentEpoch(Long userId) {
+        Long epoch = knownEpoch(userId);
+        return epoch != null ? epoch : 0L;
+    }
+
+    /**
+     * 记录从 Redis 读到的纪元（如登录脚本的返回值）
+     */
+    public void observe(Long userId, long epoch) {
+        epochs.asMap().merge(userId, epoch, Math::max);
+    }
+
+    /**
+     * 递增用户纪元，使该用户此前签发的所有 Token 失效
+     * 纪元写入 Redis 后即已生效，广播失败只记录日志，其他节点在本地纪元过期重新读取时获知
+     *
+     * @param userId 用户ID
+     * @return 新纪元
+     */
+    public long bump(Long userId) {
+        Long epoch = circuitBreaker.call(() -> redisTemplate.opsForValue().increment(EPOCH_PREFIX + userId));
+        long value = epoch != null ? epoch : 0L;
+        epochs.asMap().merge(userId, value, Math::max);
+        try {
+            circuitBreaker.call(() -> redisTemplate.convertAndSend(CHANNEL, userId + "|" + value));
+        } catch (DataAccessException e) {
+            log.warn("Failed to broadcast token epoch {} of user {}, other nodes pick it up on refresh", value, userId, e);
+        }
+        return value;
+    }
+
+    /**
+     * 递增用户纪元，Redis 不可用（含熔断）时不抛出异常，改为后台重试
+     * 用于数据库变更已提交、无法回滚的场景；重试成功前该用户已签发的 Token 仍然有效
+     *
+     * @param userId 用户ID
+     * @return 是否已立即生效
+     */
+    public boolean bumpOrRetry(Long userId) {
+        try {
+            bump(userId);
+            return true;
+        } catch (DataAccessException e) {
+            pendingBumps.add(userId);
+            log.error("Failed to bump token epoch of user {}, existing tokens stay valid until the background retry succeeds",
+                    userId, e);
+            return false;
+        }
+    }
+
+    /**
+     * 重试递增失败的纪元；熔断期间跳过，同一用户的多次失败只递增一次
+     */
+    @Scheduled(fixedDelay = 5, initialDelay = 5, timeUnit = TimeUnit.SECONDS)
+    public void retryPendingBumps() {
+        if (pendingBumps.isEmpty() || circuitBreaker.isOpen()) {
+            return;
+        }
+        for (Long userId : List.copyOf(pendingBumps)) {
+            try {
+                bump(userId);
+                pendingBumps.remove(userId);
+                log.info("Token epoch of user {} bumped after retry", userId);
+            } catch (DataAccessException e) {
+                log.warn("Retry of token epoch bump for user {} failed: {}", userId, e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Token 的纪元是否已过期；无法获知用户纪元时按失败策略处理
+     *
+     * @param verified 已验签的 Token
+     */
+    public boolean isStale(VerifiedToken verified) {
+        if (verified.userId() == null) {
+            return false;
+        }
+        Long epoch = knownEpoch(verified.userId());
+        return epoch != null ? verified.epoch() < epoch : !failOpen;
+    }
+
+    @Override
+    public void onMessage(@NonNull Message message, byte @Nullable [] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int sep = body.indexOf('|');
+        if (sep <= 0) {
+            return;
+        }
+        try {
+            Long userId = Long.parseLong(body.substring(0, sep));
+            long epoch = Long.parseLong(body.substring(sep + 1));
+            epochs.asMap().merge(userId, epoch, Math::max);
+        } catch (NumberFormatException e) {
+            log.warn("Ignore malformed epoch event: {}", body);
+        }
+    }
+
+    /**
+     * 本地缓存或 Redis 中的纪元，Redis 不可用且本地无缓存时返回 null（不缓存该结果）
+     */
+    private Long knownEpoch(Long userId) {
+        try {
+            return epochs.get(userId);
+        } catch (RedisCircuitBreaker.OpenException e) {
+            return null;
+        } catch (DataAccessException e) {
+            log.warn("Redis unavailable, token epoch of user {} unknown: {}", userId, e.getMessage());
+            return null;
+        }
+    }
+
+    private long loadEpoch(Long userId) {
+        String value = redisTemplate.opsForValue().get(EPOCH_PREFIX + userId);
+        if (value == null) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    /**
+     * 首次读取同步加载；后台刷新时熔断器已打开则保留旧值，不访问 Redis
+     */
+    private class EpochLoader implements CacheLoader<Long, Long> {
+
+        @Override
+        public Long load(@NonNull Long userId) {
+            return circuitBreaker.call(() -> loadEpoch(userId));
+        }
+
+        @Override
+        public Long reload(@NonNull Long userId, @NonNull Long oldValue) {
+            if (circuitBreaker.isOpen()) {
+                return oldValue;
+            }
+            return Math.max(oldValue, load(userId));
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package org.max.authvs.security;
+
+import java.time.Instant;
+
+/**
+ * 已完成签名校验的 Token 上下文
+ * 每个请求只解析、验签一次，后续的用户名、设备类型、撤销检查等都从此对象读取
+ *
+ * @param subject    用户名（sub）
+ * @param userId     用户ID
+ * @param deviceType 设备类型编码，不存在时为 null
+ * @param issuedAt   签发时间（iat）
+ * @param expiresAt  过期时间（exp）
+ * @param jti        Token 唯一标识，旧版 Token 可能为 null
+ * @param epoch      签发时的用户纪元（ver），旧版 Token 为 0
+ * @param digest     Token 原文的 SHA-256 摘要（Base64URL），用作缓存键及旧版 Token 的撤销标识
+ */
+public record VerifiedToken(
+        String subject,
+        Long userId,
+        String deviceType,
+        Instant issuedAt,
+        Instant expiresAt,
+        String jti,
+        long epoch,
+        String digest
+) {
+
+    /**
+     * 是否已过期
+     */
+    public boolean isExpired() {
+        return expiresAt == null || !expiresAt.isAfter(Instant.now());
+    }
+
+    /**
+     * 撤销记录使用的标识：优先使用 jti，旧版 Token 没有 jti 时使用定长摘要
+     */
+    public String revocationId() {
+        return jti != null ? jti : digest;
+    }
+}
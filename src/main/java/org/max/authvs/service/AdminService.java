@@ -13,16 +13,19 @@ import org.max.authvs.api.dto.admin.in.AdminUpdateParam;
 import org.max.authvs.api.dto.admin.out.AdminDetailVo;
 import org.max.authvs.api.dto.admin.out.AdminListVo;
 import org.max.authvs.api.dto.admin.out.RoleListVo;
-import org.max.authvs.entity.Role;
-import org.max.authvs.entity.RolePermission;
 import org.max.authvs.entity.User;
+import org.max.authvs.entity.UserWithRole;
 import org.max.authvs.entity.UserRole;
 import org.max.authvs.enums.RoleType;
 import org.max.authvs.enums.UserType;
 import org.max.authvs.mapper.*;
+import org.max.authvs.security.JwtService;
+import org.max.authvs.security.PermissionCacheService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -35,10 +38,10 @@ public class AdminService {
 
     private final UserMapper userMapper;
     private final UserRoleMapper userRoleMapper;
-    private final RoleMapper roleMapper;
-    private final RolePermissionMapper rolePermissionMapper;
-    private final PermissionMapper permissionMapper;
+    private final RbacSnapshotService rbacSnapshotService;
     private final PasswordEncoder passwordEncoder;
+    private final JwtService jwtService;
+    private final PermissionCacheService permissionCacheService;
 
     /**
      * 分页查询后台管理员
@@ -71,21 +74,20 @@ public class AdminService {
         if (!userIds.isEmpty()) {
             List<UserRole> userRoles = userRoleMapper.selectList(
                     new LambdaQueryWrapper<UserRole>().in(UserRole::getUserId, userIds));
-            List<Long> roleIds = userRoles.stream().map(UserRole::getRoleId).distinct().toList();
-            if (!roleIds.isEmpty()) {
-                Map<Long, Role> roleMap = roleMapper.selectByIds(roleIds).stream()
-                        .filter(r -> Boolean.TRUE.equals(r.getEnabled()))
-                        .collect(Collectors.toMap(Role::getId, r -> r, (a, b) -> a));
-
+            if (!userRoles.isEmpty()) {
+                RbacSnapshot rbac = rbacSnapshotService.current();
                 userRoleMap.putAll(userRoles.stream()
-                        .filter(ur -> roleMap.containsKey(ur.getRoleId()))
+                        .filter(ur -> {
+                            RbacSnapshot.RoleNode role = rbac.role(ur.getRoleId());
+                            return role != null && role.enabled();
+                        })
                         .collect(Collectors.groupingBy(UserRole::getUserId,
                                 Collectors.mapping(ur -> {
-                                    Role role = roleMap.get(ur.getRoleId());
+                                    RbacSnapshot.RoleNode role = rbac.role(ur.getRoleId());
                                     return new AdminListVo.RoleVo(
-                                            role.getId(),
-                                            role.getRoleName(),
-                                            role.getRoleCode()
+                                            role.id(),
+                                            role.name(),
+                                            role.code()
                                     );
                                 }, Collectors.toList()))));
             }
@@ -116,33 +118,23 @@ public class AdminService {
      * 获取管理员详情
      */
     public AdminDetailVo getAdminDetail(Long adminId) {
-        User user = userMapper.selectById(adminId);
-        if (user == null || !Objects.equals(user.getUserType(), UserType.ADMIN.getValue())) {
+        // 一次联表查询用户及其角色ID，角色和权限详情从 RBAC 快照获取
+        List<UserWithRole> rows = userMapper.selectWithRolesByUserId(adminId);
+        if (rows.isEmpty() || !Objects.equals(rows.getFirst().getUserType(), UserType.ADMIN.getValue())) {
             return null;
         }
+        UserWithRole user = rows.getFirst();
+        List<Long> roleIds = rows.stream().map(UserWithRole::getRoleId).filter(Objects::nonNull).toList();
+        RbacSnapshot rbac = rbacSnapshotService.current();
 
-        // roles
-        List<UserRole> userRoles = userRoleMapper.selectList(
-                new LambdaQueryWrapper<UserRole>().eq(UserRole::getUserId, user.getId()));
-        List<Long> roleIds = userRoles.stream().map(UserRole::getRoleId).toList();
-        List<AdminDetailVo.RoleVo> roles = new ArrayList<>();
-        List<AdminDetailVo.PermissionVo> permissions = new ArrayList<>();
-        if (!roleIds.isEmpty()) {
-            roles = roleMapper.selectByIds(roleIds).stream()
-                    .filter(r -> Boolean.TRUE.equals(r.getEnabled()))
-                    .map(r -> new AdminDetailVo.RoleVo(r.getId(), r.getRoleName(), r.getRoleCode()))
-                    .collect(Collectors.toList());
-
-            List<RolePermission> rolePermissions = rolePermissionMapper.selectList(
-                    new LambdaQueryWrapper<RolePermission>().in(RolePermission::getRoleId, roleIds));
-            List<Long> permIds = rolePermissions.stream().map(RolePermission::getPermissionId).distinct().toList();
-            if (!permIds.isEmpty()) {
-                permissions = permissionMapper.selectByIds(permIds).stream()
-                        .filter(p -> Boolean.TRUE.equals(p.getEnabled()))
-                        .map(p -> new AdminDetailVo.PermissionVo(p.getId(), p.getPermissionName(), p.getPermissionCode()))
-                        .collect(Collectors.toList());
-            }
-        }
+        List<AdminDetailVo.RoleVo> roles = roleIds.stream()
+                .map(rbac::role)
+                .filter(r -> r != null && r.enabled())
+                .map(r -> new AdminDetailVo.RoleVo(r.id(), r.name(), r.code()))
+                .collect(Collectors.toList());
+        List<AdminDetailVo.PermissionVo> permissions = rbac.permissionsOf(roleIds).stream()
+                .map(p -> new AdminDetailVo.PermissionVo(p.id(), p.name(), p.code()))
+                .collect(Collectors.toList());
 
         return new AdminDetailVo(
                 user.getId(),
@@ -184,7 +176,9 @@ public class AdminService {
             throw new IllegalArgumentException("管理员不存在");
         }
 
-        if (StrUtil.isNotBlank(param.getPassword())) {
+        boolean wasEnabled = Boolean.TRUE.equals(user.getEnabled());
+        boolean passwordChanged = StrUtil.isNotBlank(param.getPassword());
+        if (passwordChanged) {
             user.setPassword(passwordEncoder.encode(param.getPassword()));
         }
         if (param.getEmail() != null) {
@@ -203,9 +197,36 @@ public class AdminService {
             userRoleMapper.delete(new LambdaQueryWrapper<UserRole>().eq(UserRole::getUserId, user.getId()));
             saveUserRoles(user.getId(), param.getRoleIds());
         }
+
+        // 用户快照包含角色ID、启用状态和联系方式，只需清理该管理员的缓存，角色条目不受影响
+        String username = user.getUsername();
+        afterCommit(() -> permissionCacheService.clearCache(username));
+
+        // 修改密码或禁用账号后，该管理员已签发的 token 全部失效；Redis 不可用时不回滚已提交的修改，后台重试
+        if (passwordChanged || (wasEnabled && !Boolean.TRUE.equals(user.getEnabled()))) {
+            Long userId = user.getId();
+            afterCommit(() -> jwtService.revokeAllTokensOrRetry(userId));
+        }
         return true;
     }
 
+    /**
+     * 事务提交后执行（清理缓存、递增纪元）；提交前执行时，并发请求或刷新令牌可能读到未提交的旧数据，
+     * 重新写入缓存或据此签发带新纪元的 token
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
     private void saveUserRoles(Long userId, List<Long> roleIds) {
         if (roleIds == null || roleIds.isEmpty()) {
             return;
@@ -223,15 +244,11 @@ public class AdminService {
      * 只返回后台管理员角色，且不包括超级管理员
      */
     public List<RoleListVo> getRolesList() {
-        List<Role> roles = roleMapper.selectList(
-                new LambdaQueryWrapper<Role>()
-                        .eq(Role::getEnabled, true)
-                        .eq(Role::getRoleType, RoleType.ADMIN.getValue())
-                        .ne(Role::getRoleCode, "SUPER_ADMIN")
-                        .orderByAsc(Role::getId)
-        );
-        return roles.stream()
-                .map(r -> new RoleListVo(r.getId(), r.getRoleName(), r.getRoleCode(), r.getRoleType(), r.getDescription(), r.getEnabled()))
+        return rbacSnapshotService.current().roles().stream()
+                .filter(r -> r.enabled()
+                        && Objects.equals(r.type(), RoleType.ADMIN.getValue())
+                        && !"SUPER_ADMIN".equals(r.code()))
+                .map(r -> new RoleListVo(r.id(), r.name(), r.code(), r.type(), r.description(), r.enabled()))
                 .collect(Collectors.toList());
     }
 }
\ No newline at end of file
@@ -3,9 +3,12 @@ package org.max.authvs.service;
 import org.max.authvs.api.dto.auth.DeviceType;
 import org.max.authvs.api.dto.auth.out.LoginVo;
 import org.max.authvs.config.I18nMessageService;
+import org.max.authvs.exception.TokenRevokedException;
 import org.max.authvs.security.CustomUserDetails;
 import org.max.authvs.security.JwtService;
 import org.max.authvs.security.PermissionCacheService;
+import org.max.authvs.security.RefreshTokenService;
+import org.max.authvs.security.VerifiedToken;
 import org.springframework.stereotype.Service;
 
 /**
@@ -17,13 +20,19 @@ public class AuthService {
     private final JwtService jwtService;
     private final I18nMessageService i18nMessageService;
     private final PermissionCacheService permissionCacheService;
+    private final RefreshTokenService refreshTokenService;
+    private final CustomUserDetailsService userDetailsService;
 
     public AuthService(JwtService jwtService,
                        I18nMessageService i18nMessageService,
-                       PermissionCacheService permissionCacheService) {
+                       PermissionCacheService permissionCacheService,
+                       RefreshTokenService refreshTokenService,
+                       CustomUserDetailsService userDetailsService) {
         this.jwtService = jwtService;
         this.i18nMessageService = i18nMessageService;
         this.permissionCacheService = permissionCacheService;
+        this.refreshTokenService = refreshTokenService;
+        this.userDetailsService = userDetailsService;
     }
 
     /**
@@ -34,24 +43,50 @@ public class AuthService {
      * @return 登录响应
      */
     public LoginVo handleLogin(CustomUserDetails userDetails, DeviceType deviceType) {
-        String token = jwtService.generateToken(userDetails, deviceType, userDetails.getId());
+        RefreshTokenService.NewFamily family = refreshTokenService.newFamily();
+        String token = jwtService.generateToken(userDetails, deviceType, userDetails.getId(), family);
         String message = i18nMessageService.getMessage("auth.login.success");
-        return new LoginVo(token, message);
+        return new LoginVo(token, family.refreshToken(), jwtService.getExpirationSeconds(), message);
+    }
+
+    /**
+     * 使用刷新令牌换取新的访问令牌和刷新令牌
+     * 用户详情优先取权限缓存（权限变更时缓存会被清除），不校验密码，也不重新查询数据库
+     *
+     * @param refreshToken 刷新令牌
+     * @return 新的令牌
+     */
+    public LoginVo handleRefresh(String refreshToken) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshToken);
+        RefreshTokenService.RefreshTokenRecord record = rotation.record();
+        CustomUserDetails userDetails = (CustomUserDetails) userDetailsService.loadUserByUsername(record.username(), true);
+        if (!userDetails.isEnabled() || !userDetails.getId().equals(record.userId())) {
+            refreshTokenService.revoke(record.userId(), record.deviceType());
+            throw new TokenRevokedException("auth.token.revoked");
+        }
+        String token = jwtService.generateToken(userDetails, DeviceType.fromCode(record.deviceType()), record.userId());
+        String message = i18nMessageService.getMessage("auth.refresh.success");
+        return new LoginVo(token, rotation.refreshToken(), jwtService.getExpirationSeconds(), message);
     }
 
     /**
      * 处理用户登出逻辑
      * 1. 撤销 token
-     * 2. 清除权限缓存
+     * 2. 撤销该设备类型上的刷新令牌
+     * 3. 清除权限缓存
      */
     public void handleLogout(String token) {
         if (token != null && !token.isEmpty()) {
             // 撤销 token
             jwtService.revokeToken(token);
 
-            // 清除权限缓存（从 token 中提取用户名）
+            // 清除刷新令牌和权限缓存（从 token 中提取用户信息）
             try {
-                String username = jwtService.extractUsername(token);
+                VerifiedToken verified = jwtService.verify(token);
+                if (verified.userId() != null && verified.deviceType() != null) {
+                    refreshTokenService.revoke(verified.userId(), verified.deviceType());
+                }
+                String username = verified.subject();
                 if (username != null && !username.isEmpty()) {
                     permissionCacheService.clearCache(username);
                 }
@@ -60,4 +95,12 @@ public class AuthService {
             }
         }
     }
+
+    /**
+     * 登出所有设备：递增用户纪元，此前签发的全部 token 立即失效
+     */
+    public void handleLogoutAll(CustomUserDetails userDetails) {
+        jwtService.revokeAllTokens(userDetails.getId());
+        permissionCacheService.clearCache(userDetails.getUsername());
+    }
 }
@@ -1,48 +1,49 @@
 package org.max.authvs.service;
 
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import lombok.extern.slf4j.Slf4j;
 import org.jspecify.annotations.NonNull;
-import org.max.authvs.entity.*;
-import org.max.authvs.mapper.*;
+import org.max.authvs.entity.UserWithRole;
+import org.max.authvs.mapper.UserMapper;
 import org.max.authvs.security.CustomUserDetails;
 import org.max.authvs.security.PermissionCacheService;
-import org.max.authvs.security.PermissionCacheVO;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
  * 自定义用户详情服务，从数据库加载用户信息（MyBatis-Plus + RBAC）
+ * <p>
+ * 缓存未命中时合并并发加载，避免冷启动或缓存集中过期时同一用户的多个请求同时查询数据库：
+ * - 本节点：同一用户名同时只有一个线程执行数据库加载，其他线程等待其结果
+ * - 集群：加载前获取 Redis 租约（auth:load-lease:{username}），未获取到说明其他节点正在加载，
+ *   短暂等待其写入缓存后直接读取；等待超时或 Redis 不可用时自行加载
+ * - 缓存条目接近过期时在虚拟线程中提前重新加载（同样需要获取租约），请求继续使用缓存值
  */
 @Service
 @Slf4j
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserMapper userMapper;
-    private final UserRoleMapper userRoleMapper;
-    private final RoleMapper roleMapper;
-    private final RolePermissionMapper rolePermissionMapper;
-    private final PermissionMapper permissionMapper;
+    private final RbacSnapshotService rbacSnapshotService;
     private final PermissionCacheService permissionCacheService;
+    // 用户名 -> 正在进行的数据库加载
+    private final Map<String, CompletableFuture<CustomUserDetails>> inFlightLoads = new ConcurrentHashMap<>();
+    // 正在后台提前刷新的用户名
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
 
     public CustomUserDetailsService(UserMapper userMapper,
-                                    UserRoleMapper userRoleMapper,
-                                    RoleMapper roleMapper,
-                                    RolePermissionMapper rolePermissionMapper,
-                                    PermissionMapper permissionMapper,
+                                    RbacSnapshotService rbacSnapshotService,
                                     PermissionCacheService permissionCacheService) {
         this.userMapper = userMapper;
-        this.userRoleMapper = userRoleMapper;
-        this.roleMapper = roleMapper;
-        this.rolePermissionMapper = rolePermissionMapper;
-        this.permissionMapper = permissionMapper;
+        this.rbacSnapshotService = rbacSnapshotService;
         this.permissionCacheService = permissionCacheService;
     }
 
@@ -63,92 +64,125 @@ public class CustomUserDetailsService implements UserDetailsService {
      * @throws UsernameNotFoundException 用户不存在时抛出
      */
     public UserDetails loadUserByUsername(@NonNull String username, boolean useCache) throws UsernameNotFoundException {
-        // 0. 如果使用缓存，优先从缓存读取，避免数据库查询
+        // 0. 如果使用缓存，优先从缓存读取（进程内 L1 -> Redis L2），避免数据库查询
         if (useCache) {
-            Optional<PermissionCacheVO> cacheOpt = permissionCacheService.getByUsername(username);
-            if (cacheOpt.isPresent()) {
-                log.info("Permission cache hit for user: {}", username);
-                return buildFromCache(cacheOpt.get());
+            Optional<CustomUserDetails> cached = permissionCacheService.getUserDetails(username, this::refreshAhead);
+            if (cached.isPresent()) {
+                log.debug("Permission cache hit for user: {}", username);
+                return cached.get();
             }
+            return loadCoalesced(username);
         }
+        return loadFromDatabase(username);
+    }
 
-        // 1. 查询用户
-        User user = userMapper.selectOne(new LambdaQueryWrapper<User>()
-                .eq(User::getUsername, username));
-        if (user == null) {
-            log.warn("User not found: {}", username);
-            throw new UsernameNotFoundException("User not found: " + username);
+    /**
+     * 合并同一用户的并发加载：第一个线程负责加载，其余线程等待同一结果
+     */
+    private CustomUserDetails loadCoalesced(String username) {
+        CompletableFuture<CustomUserDetails> loading = new CompletableFuture<>();
+        CompletableFuture<CustomUserDetails> existing = inFlightLoads.putIfAbsent(username, loading);
+        if (existing != null) {
+            log.debug("Waiting for in-flight load of user: {}", username);
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
         }
-
-        // 2. 查询用户的角色ID列表
-        List<UserRole> userRoles = userRoleMapper.selectList(
-                new LambdaQueryWrapper<UserRole>()
-                        .eq(UserRole::getUserId, user.getId())
-        );
-
-        List<Long> roleIds = userRoles.stream()
-                .map(UserRole::getRoleId)
-                .collect(Collectors.toList());
-
-        if (roleIds.isEmpty()) {
-            log.warn("User {} has no roles assigned", username);
-            // 用户没有角色，返回空权限列表
-            return new CustomUserDetails(
-                    user.getId(),
-                    user.getUsername(),
-                    user.getPassword(),
-                    user.getEmail(),
-                    user.getPhone(),
-                    user.getUserType(),
-                    Boolean.TRUE.equals(user.getEnabled()),
-                    new ArrayList<>()
-            );
+        try {
+            CustomUserDetails details = loadWithLease(username);
+            loading.complete(details);
+            return details;
+        } catch (RuntimeException e) {
+            loading.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLoads.remove(username, loading);
         }
+    }
 
-        // 3. 查询角色详情
-        List<Role> roles = roleMapper.selectByIds(roleIds);
-        log.info("User {} found roles: {}", username,
-                roles.stream().map(r -> r.getRoleCode() + "(" + r.getEnabled() + ")").collect(Collectors.toList()));
-
-        // 4. 查询角色对应的权限ID列表
-        List<RolePermission> rolePermissions = rolePermissionMapper.selectList(
-                new LambdaQueryWrapper<RolePermission>()
-                        .in(RolePermission::getRoleId, roleIds)
-        );
-
-        List<Long> permissionIds = rolePermissions.stream()
-                .map(RolePermission::getPermissionId)
-                .distinct()
-                .collect(Collectors.toList());
-
-        // 5. 查询权限详情
-        List<Permission> permissions = new ArrayList<>();
-        if (!permissionIds.isEmpty()) {
-            permissions = permissionMapper.selectByIds(permissionIds);
+    /**
+     * 持有集群租约时从数据库加载；其他节点正在加载时等待其写入缓存
+     */
+    private CustomUserDetails loadWithLease(String username) {
+        // 上一个加载者可能刚写入缓存
+        Optional<CustomUserDetails> cached = permissionCacheService.getUserDetails(username);
+        if (cached.isPresent()) {
+            return cached.get();
         }
-
-        // 6. 构建Spring Security的权限列表
-        Set<GrantedAuthority> authorities = new HashSet<>();
-
-        // 添加角色权限：ROLE_角色编码
-        for (Role role : roles) {
-            if (Boolean.TRUE.equals(role.getEnabled())) {
-                authorities.add(new SimpleGrantedAuthority("ROLE_" + role.getRoleCode()));
+        String leaseToken = UUID.randomUUID().toString();
+        if (!permissionCacheService.tryAcquireLoadLease(username, leaseToken)) {
+            cached = permissionCacheService.awaitLoadedBy(username);
+            if (cached.isPresent()) {
+                log.debug("User {} loaded by another node", username);
+                return cached.get();
             }
+            log.debug("Timed out waiting for another node to load user {}, loading locally", username);
+            return loadFromDatabase(username);
+        }
+        try {
+            return loadFromDatabase(username);
+        } finally {
+            permissionCacheService.releaseLoadLease(username, leaseToken);
+        }
+    }
+
+    /**
+     * 在后台重新加载即将过期的缓存条目；本节点已在刷新或其他节点持有租约时跳过
+     */
+    private void refreshAhead(String username) {
+        if (!refreshing.add(username)) {
+            return;
         }
+        Thread.ofVirtual().name("permission-refresh").start(() -> {
+            String leaseToken = UUID.randomUUID().toString();
+            try {
+                if (permissionCacheService.tryAcquireLoadLease(username, leaseToken)) {
+                    try {
+                        loadFromDatabase(username);
+                        log.debug("Permission cache refreshed ahead of expiry for user: {}", username);
+                    } finally {
+                        permissionCacheService.releaseLoadLease(username, leaseToken);
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.warn("Failed to refresh permission cache for user {}: {}", username, e.getMessage());
+            } finally {
+                refreshing.remove(username);
+            }
+        });
+    }
 
-        // 添加权限：PERM_权限编码
-        for (Permission permission : permissions) {
-            if (Boolean.TRUE.equals(permission.getEnabled())) {
-                authorities.add(new SimpleGrantedAuthority("PERM_" + permission.getPermissionCode()));
+    /**
+     * 从数据库加载用户及其角色ID（一次联表查询），角色提供的权限从 RBAC 快照获取，并写入权限缓存
+     */
+    private CustomUserDetails loadFromDatabase(String username) {
+        List<UserWithRole> rows = userMapper.selectWithRolesByUsername(username);
+        if (rows.isEmpty()) {
+            log.warn("User not found: {}", username);
+            throw new UsernameNotFoundException("User not found: " + username);
+        }
+        UserWithRole user = rows.getFirst();
+
+        // 按角色构建权限集合（角色权限单独缓存，变更时只清理该角色），用户权限为各角色的并集
+        RbacSnapshot rbac = rbacSnapshotService.current();
+        Map<Long, List<GrantedAuthority>> roleAuthorities = new LinkedHashMap<>();
+        for (UserWithRole row : rows) {
+            if (!user.getId().equals(row.getId())) {
+                throw new IllegalStateException("Duplicate username: " + username);
             }
+            if (row.getRoleId() != null) {
+                roleAuthorities.put(row.getRoleId(), rbac.authoritiesOf(row.getRoleId()));
+            }
+        }
+        if (roleAuthorities.isEmpty()) {
+            log.warn("User {} has no roles assigned", username);
         }
 
-        log.info("User {} loaded with authorities: {}",
-                username,
-                authorities.stream()
-                        .map(GrantedAuthority::getAuthority)
-                        .collect(Collectors.toList()));
+        // 重复项由 CustomUserDetails 去除
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        roleAuthorities.values().forEach(authorities::addAll);
 
         CustomUserDetails details = new CustomUserDetails(
                 user.getId(),
@@ -158,29 +192,19 @@ public class CustomUserDetailsService implements UserDetailsService {
                 user.getPhone(),
                 user.getUserType(),
                 Boolean.TRUE.equals(user.getEnabled()),
-                new ArrayList<>(authorities)
+                List.copyOf(roleAuthorities.keySet()),
+                authorities
         );
 
+        log.info("User {} loaded with authorities: {}",
+                username,
+                details.getAuthorities().stream()
+                        .map(GrantedAuthority::getAuthority)
+                        .collect(Collectors.toList()));
+
         // 缓存权限，后续请求直接命中缓存
-        permissionCacheService.cachePermissions(details);
+        permissionCacheService.cachePermissions(details, roleAuthorities);
 
         return details;
     }
-
-    private CustomUserDetails buildFromCache(PermissionCacheVO cache) {
-        Set<GrantedAuthority> authorities = cache.getAuthorities().stream()
-                .map(SimpleGrantedAuthority::new)
-                .collect(Collectors.toSet());
-
-        return new CustomUserDetails(
-                cache.getUserId(),
-                cache.getUsername(),
-                "", // 密码不存储在缓存中
-                cache.getEmail(),
-                cache.getPhone(),
-                cache.getUserType(),
-                Boolean.TRUE.equals(cache.getEnabled()),
-                new ArrayList<>(authorities)
-        );
-    }
 }
@@ -1,136 +1,174 @@
 package org.max.authvs.service;
 
-import cn.hutool.core.bean.BeanUtil;
-import cn.hutool.core.bean.copier.CopyOptions;
-import cn.hutool.core.lang.tree.Tree;
-import cn.hutool.core.lang.tree.TreeNodeConfig;
-import cn.hutool.core.lang.tree.TreeUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.extern.slf4j.Slf4j;
+import org.max.authvs.api.dto.ResultDTO;
 import org.max.authvs.api.dto.menu.out.MenuVo;
-import org.max.authvs.entity.Permission;
-import org.max.authvs.entity.Role;
-import org.max.authvs.entity.RolePermission;
 import org.max.authvs.entity.UserRole;
-import org.max.authvs.mapper.PermissionMapper;
-import org.max.authvs.mapper.RoleMapper;
-import org.max.authvs.mapper.RolePermissionMapper;
 import org.max.authvs.mapper.UserRoleMapper;
+import org.max.authvs.security.CustomUserDetails;
 import org.springframework.stereotype.Service;
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
- * 菜单服务
+ * 菜单服务，菜单树由 RBAC 快照中的权限父子关系构建，不查询角色和权限表
+ * <p>
+ * - 菜单只取决于用户的角色集合，按角色集合签名（排序去重后的角色ID）缓存序列化好的响应和 ETag
+ * - 缓存条目记录构建时的快照，快照替换（RBAC 数据变更）后首次访问时重建
+ * - ETag 为响应内容的摘要，内容相同的角色集合和各节点得到相同的 ETag
  */
 @Service
 @Slf4j
 public class MenuService {
 
+    private static final String SUPER_ADMIN = "SUPER_ADMIN";
+    private static final int ADMIN_PERMISSION = 2;
+    private static final int MENU_CACHE_SIZE = 1_000;
+    // 不再访问的角色集合条目过期后释放其引用的旧快照
+    private static final Duration MENU_CACHE_IDLE = Duration.ofHours(1);
+
     private final UserRoleMapper userRoleMapper;
-    private final RolePermissionMapper rolePermissionMapper;
-    private final PermissionMapper permissionMapper;
-    private final RoleMapper roleMapper;
-
-    public MenuService(UserRoleMapper userRoleMapper,
-                       RolePermissionMapper rolePermissionMapper,
-                       PermissionMapper permissionMapper,
-                       RoleMapper roleMapper) {
+    private final RbacSnapshotService rbacSnapshotService;
+    private final ObjectMapper objectMapper;
+    // 角色集合签名 -> 序列化好的菜单响应
+    private final Cache<String, RenderedMenus> menuCache = Caffeine.newBuilder()
+            .maximumSize(MENU_CACHE_SIZE)
+            .expireAfterAccess(MENU_CACHE_IDLE)
+            .build();
+
+    public MenuService(UserRoleMapper userRoleMapper, RbacSnapshotService rbacSnapshotService,
+                       ObjectMapper objectMapper) {
         this.userRoleMapper = userRoleMapper;
-        this.rolePermissionMapper = rolePermissionMapper;
-        this.permissionMapper = permissionMapper;
-        this.roleMapper = roleMapper;
+        this.rbacSnapshotService = rbacSnapshotService;
+        this.objectMapper = objectMapper;
     }
 
     /**
-     * 获取用户的菜单树
+     * 获取用户的菜单响应（{@code ResultDTO<List<MenuVo>>} 的 JSON 和 ETag）
+     * <p>
+     * 角色ID优先取自登录信息，登录信息中没有角色时查询用户角色表
      *
-     * @param userId 用户ID
-     * @return 菜单树列表
+     * @param user 当前用户
+     * @return 序列化好的菜单响应
      */
-    public List<MenuVo> getUserMenus(Long userId) {
-        // 1. 获取用户的所有角色
-        List<UserRole> userRoles = userRoleMapper.selectList(
+    public RenderedMenus getUserMenus(CustomUserDetails user) {
+        List<Long> roleIds = user.getRoleIds() != null ? user.getRoleIds() : queryRoleIds(user.getId());
+        RbacSnapshot rbac = rbacSnapshotService.current();
+        String signature = signature(rbac, roleIds);
+        RenderedMenus cached = menuCache.getIfPresent(signature);
+        if (cached != null && cached.snapshot() == rbac) {
+            return cached;
+        }
+        RenderedMenus rendered = render(rbac, roleIds);
+        menuCache.put(signature, rendered);
+        return rendered;
+    }
+
+    private List<Long> queryRoleIds(Long userId) {
+        return userRoleMapper.selectList(
                 new LambdaQueryWrapper<UserRole>().eq(UserRole::getUserId, userId)
-        );
+        ).stream().map(UserRole::getRoleId).collect(Collectors.toList());
+    }
+
+    /**
+     * 角色集合签名：快照中存在的角色ID排序去重后以逗号连接（不存在的角色不影响菜单）
+     */
+    private static String signature(RbacSnapshot rbac, List<Long> roleIds) {
+        long[] ids = roleIds.stream()
+                .filter(roleId -> rbac.role(roleId) != null)
+                .mapToLong(Long::longValue)
+                .sorted()
+                .distinct()
+                .toArray();
+        return Arrays.stream(ids).mapToObj(Long::toString).collect(Collectors.joining(","));
+    }
+
+    private RenderedMenus render(RbacSnapshot rbac, List<Long> roleIds) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(ResultDTO.success(buildUserMenus(rbac, roleIds)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize menus", e);
+        }
+        return new RenderedMenus(rbac, body, '"' + HexFormat.of().formatHex(sha256(body), 0, 16) + '"');
+    }
 
-        if (userRoles.isEmpty()) {
+    private List<MenuVo> buildUserMenus(RbacSnapshot rbac, List<Long> roleIds) {
+        // 1. 用户没有角色时没有菜单
+        if (roleIds.isEmpty()) {
             return new ArrayList<>();
         }
 
-        // 2. 获取角色信息，判断是否是超级管理员
-        List<Long> roleIds = userRoles.stream()
-                .map(UserRole::getRoleId)
-                .collect(Collectors.toList());
-
-        List<Role> roles = roleMapper.selectList(
-                new LambdaQueryWrapper<Role>().in(Role::getId, roleIds)
-        );
-
-        // 如果是超级管理员，返回所有菜单
-        boolean isSuperAdmin = roles.stream()
-                .anyMatch(role -> "SUPER_ADMIN".equals(role.getRoleCode()));
-
-        List<Permission> permissions;
-        if (isSuperAdmin) {
-            // 超级管理员：获取所有启用的后台权限
-            permissions = permissionMapper.selectList(
-                    new LambdaQueryWrapper<Permission>()
-                            .eq(Permission::getPermissionType, 2)  // 后台权限
-                            .eq(Permission::getEnabled, true)
-                            .orderByAsc(Permission::getSortOrder)
-            );
-        } else {
-            // 普通用户：根据角色获取权限
-            List<RolePermission> rolePermissions = rolePermissionMapper.selectList(
-                    new LambdaQueryWrapper<RolePermission>().in(RolePermission::getRoleId, roleIds)
-            );
-
-            List<Long> permissionIds = rolePermissions.stream()
-                    .map(RolePermission::getPermissionId)
-                    .collect(Collectors.toList());
-
-            if (permissionIds.isEmpty()) {
-                return new ArrayList<>();
-            }
+        // 2. 判断是否是超级管理员
 
-            permissions = permissionMapper.selectList(
-                    new LambdaQueryWrapper<Permission>()
-                            .in(Permission::getId, permissionIds)
-                            .eq(Permission::getEnabled, true)
-                            .orderByAsc(Permission::getSortOrder)
-            );
-        }
+        boolean isSuperAdmin = roleIds.stream()
+                .map(rbac::role)
+                .anyMatch(role -> role != null && SUPER_ADMIN.equals(role.code()));
+
+        // 3. 超级管理员获取所有启用的后台权限，普通用户根据角色获取权限
+        List<RbacSnapshot.PermissionNode> permissions = isSuperAdmin
+                ? rbac.permissionsOfType(ADMIN_PERMISSION)
+                : rbac.permissionsOf(roleIds);
 
         if (permissions.isEmpty()) {
             return new ArrayList<>();
         }
 
-        // 4. 构建菜单树（使用hutool TreeUtil）
-        return buildMenuTree(permissions);
+        // 4. 构建菜单树
+        Set<Long> visible = permissions.stream()
+                .map(RbacSnapshot.PermissionNode::id)
+                .collect(Collectors.toSet());
+        return buildMenuTree(rbac, rbac.rootPermissions(), visible);
     }
 
     /**
-     * 构建菜单树
+     * 构建菜单树：按快照中的父子关系自顶向下展开，只保留可见的权限；父权限不可见时其子权限也不显示
      *
-     * @param permissions 权限列表
-     * @return 菜单树
+     * @param nodes   当前层级的权限（已按排序号排列）
+     * @param visible 用户可见的权限ID
+     * @return 菜单树，没有子菜单的节点 children 为 null
      */
-    private List<MenuVo> buildMenuTree(List<Permission> permissions) {
-        TreeNodeConfig config = new TreeNodeConfig();
-        List<Tree<Integer>> result = TreeUtil.build(permissions, 0, config, (obj, tree) -> {
-            tree.setId(Math.toIntExact(obj.getId()));
-            tree.setParentId(Math.toIntExact(obj.getParentId()));
-            tree.setWeight(obj.getSortOrder());
-            tree.setName(obj.getPermissionName());
-            tree.putExtra("code", obj.getPermissionCode());
-            tree.putExtra("path", obj.getModulePath());
-            tree.putExtra("sort", obj.getSortOrder());
-        });
-
-        return BeanUtil.copyToList(result, MenuVo.class, CopyOptions.create());
+    private List<MenuVo> buildMenuTree(RbacSnapshot rbac, List<RbacSnapshot.PermissionNode> nodes, Set<Long> visible) {
+        List<MenuVo> menus = new ArrayList<>();
+        for (RbacSnapshot.PermissionNode node : nodes) {
+            if (!visible.contains(node.id())) {
+                continue;
+            }
+            List<MenuVo> children = buildMenuTree(rbac, rbac.childrenOf(node.id()), visible);
+            menus.add(new MenuVo(node.id(), node.name(), node.code(), node.modulePath(), node.sortOrder(),
+                    node.parentId(), children.isEmpty() ? null : children));
+        }
+        return menus;
+    }
+
+    private static byte[] sha256(byte[] value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 
+    /**
+     * 序列化好的菜单响应
+     *
+     * @param snapshot 构建时使用的 RBAC 快照，快照被替换后条目失效
+     * @param body     {@code ResultDTO<List<MenuVo>>} 的 JSON（UTF-8）
+     * @param etag     强 ETag（带引号），为响应内容的摘要
+     */
+    public record RenderedMenus(RbacSnapshot snapshot, byte[] body, String etag) {
+    }
 }
@@ -0,0 +1,82 @@
+package org.max.authvs.service;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.max.authvs.api.dto.monitor.out.CacheStatsVo;
+import org.max.authvs.api.dto.monitor.out.OperationLogEndpointVo;
+import org.max.authvs.api.dto.monitor.out.OperationLogQueueVo;
+import org.max.authvs.security.PermissionCacheService;
+import org.max.authvs.security.RedisCircuitBreaker;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * 运行监控服务，汇总当前节点的缓存等运行指标
+ */
+@Service
+public class MonitorService {
+
+    private final PermissionCacheService permissionCacheService;
+    private final RedisCircuitBreaker redisCircuitBreaker;
+    private final OperationLogWriter operationLogWriter;
+    private final OperationLogSampler operationLogSampler;
+
+    public MonitorService(PermissionCacheService permissionCacheService, RedisCircuitBreaker redisCircuitBreaker,
+                          OperationLogWriter operationLogWriter, OperationLogSampler operationLogSampler) {
+        this.permissionCacheService = permissionCacheService;
+        this.redisCircuitBreaker = redisCircuitBreaker;
+        this.operationLogWriter = operationLogWriter;
+        this.operationLogSampler = operationLogSampler;
+    }
+
+    /**
+     * 权限缓存各级命中情况及 Redis 熔断状态
+     */
+    public CacheStatsVo getPermissionCacheStats() {
+        CacheStats local = permissionCacheService.getLocalStats();
+        long redisHits = permissionCacheService.getRedisHits();
+        long redisMisses = permissionCacheService.getRedisMisses();
+        long redisRequests = redisHits + redisMisses;
+        return new CacheStatsVo(
+                permissionCacheService.getLocalSize(),
+                local.hitCount(),
+                local.missCount(),
+                local.hitRate(),
+                local.evictionCount(),
+                redisHits,
+                redisMisses,
+                redisRequests == 0 ? 1.0 : (double) redisHits / redisRequests,
+                redisCircuitBreaker.isOpen(),
+                redisCircuitBreaker.getShortCircuited()
+        );
+    }
+
+    /**
+     * 操作日志写入队列（或日志文件）的积压、丢弃数和批量写入耗时
+     */
+    public OperationLogQueueVo getOperationLogQueueStats() {
+        return new OperationLogQueueVo(
+                operationLogWriter.getQueueSize(),
+                operationLogWriter.getQueueCapacity(),
+                operationLogWriter.isJournalEnabled(),
+                operationLogWriter.getJournalBytes(),
+                operationLogWriter.getJournalMaxBytes(),
+                operationLogWriter.getJournalCorruptRecords(),
+                operationLogWriter.getEnqueued(),
+                operationLogWriter.getDropped(),
+                operationLogWriter.getWritten(),
+                operationLogWriter.getFailed(),
+                operationLogWriter.getFlushes(),
+                operationLogWriter.getAvgFlushMillis(),
+                operationLogWriter.getLastFlushMillis(),
+                operationLogWriter.getMaxFlushMillis()
+        );
+    }
+
+    /**
+     * 各接口的调用数、日志记录数以及采样、限流跳过的次数
+     */
+    public List<OperationLogEndpointVo> getOperationLogEndpointStats() {
+        return operationLogSampler.getEndpointStats();
+    }
+}
@@ -32,10 +32,14 @@ public class OAuthClientService {
 
     private final OAuthClientMapper clientMapper;
     private final PasswordEncoder passwordEncoder;
+    private final TokenIntrospectionService introspectionService;
 
-    public OAuthClientService(OAuthClientMapper clientMapper, PasswordEncoder passwordEncoder) {
+    public OAuthClientService(OAuthClientMapper clientMapper,
+                              PasswordEncoder passwordEncoder,
+                              TokenIntrospectionService introspectionService) {
         this.clientMapper = clientMapper;
         this.passwordEncoder = passwordEncoder;
+        this.introspectionService = introspectionService;
     }
 
     /**
@@ -122,6 +126,8 @@ public class OAuthClientService {
         client.setEnabled(true);
 
         clientMapper.insert(client);
+        // 创建前被探测过的 clientId 可能仍在未知客户端缓存中
+        introspectionService.evictClient(clientId);
 
         ClientVo vo = convertToVO(client);
         // 创建时返回明文密钥
@@ -153,6 +159,7 @@ public class OAuthClientService {
         }
 
         clientMapper.updateById(client);
+        introspectionService.evictClient(client.getClientId());
 
         log.info("更新客户端成功: id={}, clientId={}", id, client.getClientId());
         return convertToVO(client);
@@ -180,6 +187,7 @@ public class OAuthClientService {
         }
 
         clientMapper.updateById(client);
+        introspectionService.evictClient(client.getClientId());
         log.info("切换客户端状态成功: id={}, clientId={}, enabled={}", id, client.getClientId(), enabled);
     }
 
@@ -209,6 +217,7 @@ public class OAuthClientService {
         }
 
         clientMapper.updateById(client);
+        introspectionService.evictClient(client.getClientId());
 
         log.info("重置客户端密钥成功: id={}, clientId={}", id, client.getClientId());
 
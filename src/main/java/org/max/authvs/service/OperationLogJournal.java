@@ -0,0 +1,529 @@
+package org.max.authvs.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.max.authvs.entity.OperationLog;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * 操作日志本地日志文件（内存映射、分段、只追加）
+ * <p>
+ * - 位置为全局字节偏移，段文件以起始位置命名（{@code 00000000000000000000.seg}），每段映射为固定大小
+ * - 记录格式：长度（int）+ CRC32C（int）+ 负载；长度为 0 表示段内数据结束，放不下的记录写到下一段
+ * - 追加只在映射内存中顺序写入，进程重启不丢失；{@link #force()} 定期刷盘以应对机器宕机
+ * - 已写入数据库的位置记录在 checkpoint 文件中（先写临时文件再原子替换），整段都已写入的段文件被删除
+ * - 启动时从最后一段开头按 CRC 校验找到写入结束位置，末尾不完整的记录被丢弃并覆盖
+ * - 打开时对目录中的 lock 文件加排他锁，同一目录只能被一个进程使用
+ */
+@Slf4j
+public final class OperationLogJournal implements Closeable {
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String LOCK_FILE = "lock";
+    private static final int HEADER_SIZE = 8;
+    private static final byte FORMAT_VERSION = 1;
+
+    private final Path dir;
+    private final int segmentSize;
+    private final long maxBytes;
+    private final FileChannel lockChannel;
+    // 段起始位置 -> 段映射；只用绝对位置读写，读写线程共享同一个映射
+    private final ConcurrentSkipListMap<Long, MappedByteBuffer> segments = new ConcurrentSkipListMap<>();
+    private final AtomicLong pendingRecords = new AtomicLong();
+    private final AtomicLong corruptRecords = new AtomicLong();
+
+    // 以下两个字段由 this 保护
+    private long activeBase;
+    private MappedByteBuffer active;
+    // 已完整写入的结束位置；先写记录再更新，读线程读到的位置之前的数据都已可见
+    private volatile long writePosition;
+    private volatile long checkpoint;
+
+    private OperationLogJournal(Path dir, int segmentSize, long maxBytes, FileChannel lockChannel) {
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.maxBytes = maxBytes;
+        this.lockChannel = lockChannel;
+    }
+
+    /**
+     * 打开（或创建）日志目录，恢复写入位置和已写入数据库的位置
+     *
+     * @param segmentSize 新建段的大小
+     * @param maxBytes    未写入数据库的数据上限，超过后追加失败
+     * @throws IllegalStateException 目录已被其他进程（或本进程的另一个实例）使用
+     */
+    public static OperationLogJournal open(Path dir, int segmentSize, long maxBytes) throws IOException {
+        if (segmentSize < 1024 * 1024 || maxBytes < segmentSize) {
+            throw new IllegalArgumentException("journal segment-size must be at least 1MB and not exceed max-size");
+        }
+        Files.createDirectories(dir);
+        FileChannel lockChannel = lock(dir);
+        OperationLogJournal journal = new OperationLogJournal(dir, segmentSize, maxBytes, lockChannel);
+        try {
+            journal.recover();
+        } catch (IOException | RuntimeException e) {
+            lockChannel.close();
+            throw e;
+        }
+        return journal;
+    }
+
+    /**
+     * 对目录中的 lock 文件加排他锁，锁随通道关闭（或进程退出）释放
+     */
+    private static FileChannel lock(Path dir) throws IOException {
+        FileChannel channel = FileChannel.open(dir.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            channel.close();
+            throw new IllegalStateException("Operation log journal directory " + dir.toAbsolutePath()
+                    + " is in use by another instance");
+        }
+        return channel;
+    }
+
+    /**
+     * 释放目录锁；映射的段文件由 GC 回收
+     */
+    @Override
+    public void close() throws IOException {
+        lockChannel.close();
+    }
+
+    private void recover() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().endsWith(SEGMENT_SUFFIX)).toList()) {
+                String name = file.getFileName().toString();
+                long base = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                segments.put(base, map(file, (int) Files.size(file), false));
+            }
+        }
+        long saved = readCheckpoint();
+        if (segments.isEmpty()) {
+            segments.put(saved, map(segmentPath(saved), segmentSize, true));
+        }
+        Map.Entry<Long, MappedByteBuffer> last = segments.lastEntry();
+        activeBase = last.getKey();
+        active = last.getValue();
+
+        // 最后一段从头校验，遇到空记录、越界或 CRC 不匹配即为写入结束位置
+        int offset = 0;
+        while (offset + HEADER_SIZE <= active.capacity()) {
+            int length = active.getInt(offset);
+            if (length <= 0 || offset + HEADER_SIZE + length > active.capacity()
+                    || crc(active, offset + HEADER_SIZE, length) != active.getInt(offset + 4)) {
+                break;
+            }
+            offset += HEADER_SIZE + length;
+        }
+        writePosition = activeBase + offset;
+        checkpoint = Math.max(Math.min(saved, writePosition), segments.firstKey());
+        deleteShippedSegments();
+
+        long count = 0;
+        for (long position = locate(checkpoint, writePosition); position >= 0;
+             position = locate(position + HEADER_SIZE + lengthAt(position), writePosition)) {
+            count++;
+        }
+        pendingRecords.set(count);
+        if (count > 0) {
+            log.info("操作日志文件中有 {} 条未写入数据库的日志，将继续写入", count);
+        }
+    }
+
+    /**
+     * 追加一条日志
+     *
+     * @return 未写入数据库的数据达到上限、记录过大、无法编码或创建新段失败时返回 false
+     */
+    public boolean append(OperationLog operationLog) {
+        byte[] payload;
+        try {
+            payload = encode(operationLog);
+        } catch (IllegalArgumentException e) {
+            log.warn("操作日志无法编码，已丢弃: {}", e.getMessage());
+            return false;
+        }
+        int crc = crc(ByteBuffer.wrap(payload), 0, payload.length);
+        int size = HEADER_SIZE + payload.length;
+        if (size > segmentSize) {
+            return false;
+        }
+        synchronized (this) {
+            if (writePosition - checkpoint + size > maxBytes) {
+                return false;
+            }
+            int offset = (int) (writePosition - activeBase);
+            if (offset + size > active.capacity()) {
+                try {
+                    roll();
+                } catch (IOException e) {
+                    log.error("创建操作日志段文件失败", e);
+                    return false;
+                }
+                offset = 0;
+            }
+            active.put(offset + HEADER_SIZE, payload);
+            active.putInt(offset + 4, crc);
+            active.putInt(offset, payload.length);
+            writePosition = activeBase + offset + size;
+        }
+        pendingRecords.incrementAndGet();
+        return true;
+    }
+
+    private void roll() throws IOException {
+        long base = activeBase + active.capacity();
+        MappedByteBuffer next = map(segmentPath(base), segmentSize, true);
+        active.force();
+        segments.put(base, next);
+        activeBase = base;
+        active = next;
+    }
+
+    /**
+     * 从指定位置读取最多 max 条日志；CRC 校验失败的段剩余部分（最多到写入位置）被跳过并计数，
+     * 无法解码的记录（格式版本不符或负载损坏）单独跳过并计数
+     */
+    public Batch read(long from, int max) {
+        long end = writePosition;
+        List<OperationLog> logs = new ArrayList<>(Math.min(max, 256));
+        int skipped = 0;
+        long position = from;
+        while (logs.size() < max) {
+            long record = locate(position, end);
+            if (record < 0) {
+                position = Math.max(position, end);
+                break;
+            }
+            Map.Entry<Long, MappedByteBuffer> segment = segments.floorEntry(record);
+            MappedByteBuffer buffer = segment.getValue();
+            int offset = (int) (record - segment.getKey());
+            int length = buffer.getInt(offset);
+            if (crc(buffer, offset + HEADER_SIZE, length) != buffer.getInt(offset + 4)) {
+                corruptRecords.incrementAndGet();
+                log.error("操作日志文件记录校验失败，跳过段 {} 的剩余部分", segment.getKey());
+                // 活动段只跳到写入位置，之后追加的记录仍会被读取
+                position = Math.min(segment.getKey() + buffer.capacity(), end);
+                continue;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(offset + HEADER_SIZE, payload);
+            position = record + HEADER_SIZE + length;
+            try {
+                logs.add(decode(payload));
+            } catch (RuntimeException e) {
+                corruptRecords.incrementAndGet();
+                skipped++;
+                log.error("操作日志文件记录无法解码，跳过位置 {} 的记录: {}", record, e.toString());
+            }
+        }
+        return new Batch(logs, position, logs.size() + skipped);
+    }
+
+    /**
+     * 定位 position 处或之后的第一条记录，没有更多记录时返回 -1
+     * 段内读到空记录（或剩余空间不足）而 position 仍小于写入位置时，说明该段已写满，继续到下一段
+     */
+    private long locate(long position, long end) {
+        while (position < end) {
+            Map.Entry<Long, MappedByteBuffer> segment = segments.floorEntry(position);
+            if (segment == null) {
+                Long first = segments.ceilingKey(position);
+                if (first == null) {
+                    return -1;
+                }
+                position = first;
+                continue;
+            }
+            MappedByteBuffer buffer = segment.getValue();
+            int offset = (int) (position - segment.getKey());
+            int length = offset + HEADER_SIZE <= buffer.capacity() ? buffer.getInt(offset) : 0;
+            if (length > 0 && offset + HEADER_SIZE + length <= buffer.capacity()) {
+                return position;
+            }
+            position = segment.getKey() + buffer.capacity();
+        }
+        return -1;
+    }
+
+    private int lengthAt(long position) {
+        Map.Entry<Long, MappedByteBuffer> segment = segments.floorEntry(position);
+        return segment.getValue().getInt((int) (position - segment.getKey()));
+    }
+
+    /**
+     * 记录已写入数据库的位置，删除全部已写入的段文件
+     *
+     * @param position 下一条待写入记录的位置（{@link Batch#next()}）
+     * @param records  本次读取的记录条数（{@link Batch#records()}）
+     */
+    public void commit(long position, int records) {
+        try {
+            Path tmp = dir.resolve(CHECKPOINT_FILE + ".tmp");
+            ByteBuffer content = ByteBuffer.allocate(12).putLong(position);
+            content.putInt(crc(content, 0, 8));
+            Files.write(tmp, content.array());
+            Files.move(tmp, dir.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // 下次提交时重试；重启后从旧位置开始会重复写入部分日志
+            log.warn("保存操作日志文件位置失败: {}", e.getMessage());
+        }
+        checkpoint = position;
+        pendingRecords.addAndGet(-records);
+        deleteShippedSegments();
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path file = dir.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(file)) {
+            return segments.isEmpty() ? 0 : segments.firstKey();
+        }
+        ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (content.capacity() != 12 || crc(content, 0, 8) != content.getInt(8)) {
+            log.warn("操作日志文件位置损坏，从最早的段开始重新写入");
+            return segments.isEmpty() ? 0 : segments.firstKey();
+        }
+        return content.getLong(0);
+    }
+
+    private void deleteShippedSegments() {
+        for (Map.Entry<Long, MappedByteBuffer> segment : segments.entrySet()) {
+            long base = segment.getKey();
+            if (base + segment.getValue().capacity() > checkpoint || base == activeBaseSnapshot()) {
+                break;
+            }
+            segments.remove(base);
+            try {
+                Files.deleteIfExists(segmentPath(base));
+            } catch (IOException e) {
+                log.warn("删除操作日志段文件失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    private synchronized long activeBaseSnapshot() {
+        return activeBase;
+    }
+
+    /**
+     * 将当前段刷到磁盘
+     */
+    public void force() {
+        MappedByteBuffer current;
+        synchronized (this) {
+            current = active;
+        }
+        current.force();
+    }
+
+    public long getCheckpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * 未写入数据库的日志条数
+     */
+    public long getPendingRecords() {
+        return pendingRecords.get();
+    }
+
+    /**
+     * 未写入数据库的数据大小（字节，含已写满段的空尾部）
+     */
+    public long getPendingBytes() {
+        return Math.max(0, writePosition - checkpoint);
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * 被跳过的损坏记录数（CRC 校验失败时跳过段的剩余部分计 1，无法解码的记录每条计 1）
+     */
+    public long getCorruptRecords() {
+        return corruptRecords.get();
+    }
+
+    private Path segmentPath(long base) {
+        return dir.resolve("%020d%s".formatted(base, SEGMENT_SUFFIX));
+    }
+
+    private static MappedByteBuffer map(Path file, int size, boolean create) throws IOException {
+        StandardOpenOption[] options = create
+                ? new StandardOpenOption[]{StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE}
+                : new StandardOpenOption[]{StandardOpenOption.READ, StandardOpenOption.WRITE};
+        try (FileChannel channel = FileChannel.open(file, options)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private static int crc(ByteBuffer buffer, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    // ---------- 编码：版本号 + 按实体字段顺序写入，字符串为变长长度（0 表示 null）+ UTF-8 ----------
+
+    static byte[] encode(OperationLog l) {
+        Encoder out = new Encoder();
+        out.write(FORMAT_VERSION);
+        out.writeLong(l.getUserId());
+        out.writeString(l.getUsername());
+        out.writeString(l.getOperationType());
+        out.writeString(l.getOperationModule());
+        out.writeString(l.getOperationDesc());
+        out.writeString(l.getRequestMethod());
+        out.writeString(l.getRequestUrl());
+        out.writeString(l.getRequestParams());
+        out.writeString(l.getResponseResult());
+        out.writeString(l.getIpAddress());
+        out.writeString(l.getDeviceType());
+        out.writeString(l.getUserAgent());
+        out.writeLong(l.getPlatformType() != null ? (long) l.getPlatformType() : null);
+        out.writeLong(l.getExecuteTime());
+        out.writeString(l.getStatus());
+        out.writeString(l.getErrorMessage());
+        LocalDateTime createdAt = l.getCreatedAt();
+        out.writeLong(createdAt != null ? createdAt.toEpochSecond(ZoneOffset.UTC) : null);
+        out.writeVarint(createdAt != null ? createdAt.getNano() : 0);
+        return out.toByteArray();
+    }
+
+    static OperationLog decode(byte[] payload) {
+        Decoder in = new Decoder(ByteBuffer.wrap(payload));
+        byte version = in.buffer.get();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalStateException("Unsupported operation log journal format: " + version);
+        }
+        OperationLog l = new OperationLog();
+        l.setUserId(in.readLong());
+        l.setUsername(in.readString());
+        l.setOperationType(in.readString());
+        l.setOperationModule(in.readString());
+        l.setOperationDesc(in.readString());
+        l.setRequestMethod(in.readString());
+        l.setRequestUrl(in.readString());
+        l.setRequestParams(in.readString());
+        l.setResponseResult(in.readString());
+        l.setIpAddress(in.readString());
+        l.setDeviceType(in.readString());
+        l.setUserAgent(in.readString());
+        Long platformType = in.readLong();
+        l.setPlatformType(platformType != null ? platformType.intValue() : null);
+        l.setExecuteTime(in.readLong());
+        l.setStatus(in.readString());
+        l.setErrorMessage(in.readString());
+        Long createdAt = in.readLong();
+        int nano = (int) in.readVarint();
+        l.setCreatedAt(createdAt != null ? LocalDateTime.ofEpochSecond(createdAt, nano, ZoneOffset.UTC) : null);
+        return l;
+    }
+
+    private static final class Encoder extends ByteArrayOutputStream {
+
+        Encoder() {
+            super(256);
+        }
+
+        void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        // null 写为 0，其他值 zigzag 编码后加 1；Long.MIN_VALUE 加 1 后溢出为 0，与 null 冲突，不允许写入
+        void writeLong(Long value) {
+            if (value != null && value == Long.MIN_VALUE) {
+                throw new IllegalArgumentException("Long.MIN_VALUE cannot be encoded");
+            }
+            writeVarint(value == null ? 0 : ((value << 1) ^ (value >> 63)) + 1);
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length + 1L);
+            write(bytes, 0, bytes.length);
+        }
+    }
+
+    private record Decoder(ByteBuffer buffer) {
+
+        long readVarint() {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = buffer.get();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        Long readLong() {
+            long raw = readVarint();
+            if (raw == 0) {
+                return null;
+            }
+            long zigzag = raw - 1;
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+
+        String readString() {
+            int length = (int) readVarint();
+            if (length == 0) {
+                return null;
+            }
+            String value = new String(buffer.array(), buffer.position(), length - 1, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length - 1);
+            return value;
+        }
+    }
+
+    /**
+     * 一次读取的日志
+     *
+     * @param logs 按写入顺序排列的日志
+     * @param next    下一条待读取记录的位置，写入数据库后作为 {@link #commit} 的参数
+     * @param records 读取的记录条数，包括无法解码而跳过的记录
+     */
+    public record Batch(List<OperationLog> logs, long next, int records) {
+    }
+}
@@ -0,0 +1,174 @@
+package org.max.authvs.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.max.authvs.annotation.OperationLog;
+import org.max.authvs.api.dto.monitor.out.OperationLogEndpointVo;
+import org.springframework.stereotype.Service;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 操作日志采样与限流
+ * <p>
+ * - 按 {@link OperationLog#sampleRate()} 随机采样，再按接口、用户每分钟上限（固定窗口，当前节点）限流
+ * - 每个接口累计调用数、记录数、采样跳过数、限流跳过数和失败数，未记录的调用只计数不写库
+ * - 失败的调用由切面强制记录，不受采样和限流影响
+ */
+@Service
+public class OperationLogSampler {
+
+    private static final int USER_WINDOW_CACHE_SIZE = 100_000;
+    private static final Duration USER_WINDOW_IDLE = Duration.ofMinutes(2);
+    private static final long WINDOW_MILLIS = 60_000;
+
+    private final ConcurrentHashMap<Method, Endpoint> endpoints = new ConcurrentHashMap<>();
+    // (接口, 用户ID) -> 当前分钟的记录数
+    private final Cache<UserWindowKey, Window> userWindows = Caffeine.newBuilder()
+            .maximumSize(USER_WINDOW_CACHE_SIZE)
+            .expireAfterAccess(USER_WINDOW_IDLE)
+            .build();
+
+    /**
+     * 获取接口的采样状态（每个方法一份），调用方可缓存以免每次查找
+     */
+    public Endpoint endpoint(Method method, OperationLog annotation) {
+        return endpoints.computeIfAbsent(method, m -> new Endpoint(
+                m.getDeclaringClass().getSimpleName() + "." + m.getName(), annotation));
+    }
+
+    /**
+     * 判断本次调用是否记录，并计入接口统计
+     *
+     * @param userId 当前用户ID，未登录时为 null（不按用户限流）
+     */
+    public Decision decide(Endpoint endpoint, Long userId) {
+        endpoint.calls.increment();
+        if (endpoint.sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= endpoint.sampleRate) {
+            endpoint.sampledOut.increment();
+            return Decision.SAMPLED_OUT;
+        }
+        if (endpoint.maxPerMinute > 0 || endpoint.maxPerUserPerMinute > 0) {
+            long minute = System.currentTimeMillis() / WINDOW_MILLIS;
+            if (endpoint.maxPerMinute > 0 && !endpoint.window.tryAcquire(minute, endpoint.maxPerMinute)) {
+                endpoint.rateLimited.increment();
+                return Decision.RATE_LIMITED;
+            }
+            if (endpoint.maxPerUserPerMinute > 0 && userId != null
+                    && !userWindows.get(new UserWindowKey(endpoint, userId), key -> new Window())
+                    .tryAcquire(minute, endpoint.maxPerUserPerMinute)) {
+                endpoint.rateLimited.increment();
+                return Decision.RATE_LIMITED;
+            }
+        }
+        endpoint.recorded.increment();
+        return Decision.RECORD;
+    }
+
+    /**
+     * 记录一次失败的调用；未被采样的调用此时也会写入日志，计入记录数
+     */
+    public void recordFailure(Endpoint endpoint, Decision decision) {
+        endpoint.failed.increment();
+        if (decision != Decision.RECORD) {
+            endpoint.recorded.increment();
+        }
+    }
+
+    /**
+     * 各接口的调用与记录统计（按调用数降序）
+     */
+    public List<OperationLogEndpointVo> getEndpointStats() {
+        return endpoints.values().stream()
+                .map(Endpoint::toVo)
+                .sorted(Comparator.comparingLong(OperationLogEndpointVo::calls).reversed())
+                .toList();
+    }
+
+    /**
+     * 采样结果
+     */
+    public enum Decision {
+        RECORD,
+        SAMPLED_OUT,
+        RATE_LIMITED
+    }
+
+    private record UserWindowKey(Endpoint endpoint, Long userId) {
+    }
+
+    /**
+     * 固定一分钟窗口的计数器
+     */
+    private static final class Window {
+
+        private long minute = -1;
+        private int count;
+
+        synchronized boolean tryAcquire(long currentMinute, int max) {
+            if (minute != currentMinute) {
+                minute = currentMinute;
+                count = 0;
+            }
+            if (count >= max) {
+                return false;
+            }
+            count++;
+            return true;
+        }
+    }
+
+    /**
+     * 单个接口的注解、每分钟窗口和统计计数
+     */
+    public static final class Endpoint {
+
+        private final String name;
+        private final OperationLog annotation;
+        private final double sampleRate;
+        private final int maxPerMinute;
+        private final int maxPerUserPerMinute;
+        private final Window window = new Window();
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder recorded = new LongAdder();
+        private final LongAdder sampledOut = new LongAdder();
+        private final LongAdder rateLimited = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+
+        private Endpoint(String name, OperationLog annotation) {
+            this.name = name;
+            this.annotation = annotation;
+            this.sampleRate = annotation.sampleRate();
+            this.maxPerMinute = annotation.maxPerMinute();
+            this.maxPerUserPerMinute = annotation.maxPerUserPerMinute();
+            if (!(sampleRate >= 0.0 && sampleRate <= 1.0)) {
+                throw new IllegalArgumentException("@OperationLog sampleRate of " + name + " must be between 0 and 1");
+            }
+            if (maxPerMinute < 0) {
+                throw new IllegalArgumentException("@OperationLog maxPerMinute of " + name + " must not be negative");
+            }
+            if (maxPerUserPerMinute < 0) {
+                throw new IllegalArgumentException("@OperationLog maxPerUserPerMinute of " + name + " must not be negative");
+            }
+        }
+
+        /**
+         * 是否按用户限流（需要当前用户ID）
+         */
+        public boolean isUserCapped() {
+            return maxPerUserPerMinute > 0;
+        }
+
+        OperationLogEndpointVo toVo() {
+            return new OperationLogEndpointVo(name, annotation.module(), annotation.description(),
+                    annotation.type().name(), annotation.level().name(), sampleRate,
+                    calls.sum(), recorded.sum(), sampledOut.sum(), rateLimited.sum(), failed.sum());
+        }
+    }
+}
@@ -7,7 +7,6 @@ import org.max.authvs.api.dto.log.OperationLogQueryParam;
 import org.max.authvs.api.dto.log.out.OperationLogVo;
 import org.max.authvs.entity.OperationLog;
 import org.max.authvs.mapper.OperationLogMapper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
@@ -22,21 +21,18 @@ import java.util.List;
 public class OperationLogService {
 
     private final OperationLogMapper operationLogMapper;
+    private final OperationLogWriter operationLogWriter;
 
-    public OperationLogService(OperationLogMapper operationLogMapper) {
+    public OperationLogService(OperationLogMapper operationLogMapper, OperationLogWriter operationLogWriter) {
         this.operationLogMapper = operationLogMapper;
+        this.operationLogWriter = operationLogWriter;
     }
 
     /**
-     * 异步保存操作日志
+     * 保存操作日志：放入写入队列后立即返回，由 {@link OperationLogWriter} 批量写入数据库
      */
-    @Async("operationLogExecutor")
     public void saveLog(OperationLog operationLog) {
-        try {
-            operationLogMapper.insert(operationLog);
-        } catch (Exception e) {
-            log.error("保存操作日志失败", e);
-        }
+        operationLogWriter.submit(operationLog);
     }
 
     /**
@@ -0,0 +1,412 @@
+package org.max.authvs.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.max.authvs.entity.OperationLog;
+import org.max.authvs.mapper.OperationLogMapper;
+import org.max.authvs.utils.BoundedJsonWriter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 操作日志批量写入器（write-behind）
+ * <p>
+ * - 请求线程只把日志放入有界队列，由单个写入线程按条数或时间凑批，一条多行 INSERT 写入数据库
+ * - 队列满时按策略处理：DROP 直接丢弃，BLOCK 最多等待 block-timeout 后丢弃；丢弃条数计入统计
+ * - 批量写入因数据问题失败时逐条重试，只丢弃有问题的行；数据库不可用时整批计为失败
+ * - 应用关闭时（Web 服务器停止之后、数据源关闭之前）停止接收并写完队列中剩余的日志
+ * <p>
+ * 配置了 {@link OperationLogJournal}（authvs.operation-log.journal.dir）时改为先写本地日志文件：
+ * 请求线程只做一次顺序写，写入线程从已确认位置读取、批量写入数据库后推进位置；
+ * 数据库不可用时日志保留在文件中稍后重试，应用重启后继续写入，不再丢弃
+ * <p>
+ * 返回结果（{@link OperationLog#getResponseSnapshot()}）由写入线程序列化，请求线程不做序列化：
+ * 内存队列模式下在写入数据库前序列化；日志文件模式下这类日志先进入内存队列，
+ * 由写入线程序列化后再追加到日志文件（序列化前仅在内存中，进程崩溃时可能丢失）
+ */
+@Slf4j
+@Component
+public class OperationLogWriter implements SmartLifecycle {
+
+    // 在 Web 服务器之后停止（阶段越小越晚停止），此时不会再有新请求写入日志
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+    // 返回结果序列化后的最大长度（与请求参数相同）
+    private static final int MAX_RESULT_LENGTH = 2000;
+
+    private final OperationLogMapper operationLogMapper;
+    // 为 null 时只用内存队列
+    private final OperationLogJournal journal;
+    // 内存队列模式下为全部日志；日志文件模式下为等待序列化返回结果的日志
+    private final BlockingQueue<OperationLog> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutNanos;
+    private final Duration shutdownTimeout;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final AtomicLong dropped = new AtomicLong();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushNanos = new LongAdder();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+    private volatile long lastFlushNanos;
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public OperationLogWriter(OperationLogMapper operationLogMapper,
+                              ObjectProvider<OperationLogJournal> journal,
+                              @Value("${authvs.operation-log.queue-capacity:10000}") int queueCapacity,
+                              @Value("${authvs.operation-log.batch-size:200}") int batchSize,
+                              @Value("${authvs.operation-log.flush-interval:1s}") Duration flushInterval,
+                              @Value("${authvs.operation-log.overflow:BLOCK}") OverflowPolicy overflowPolicy,
+                              @Value("${authvs.operation-log.block-timeout:50ms}") Duration blockTimeout,
+                              @Value("${authvs.operation-log.shutdown-timeout:10s}") Duration shutdownTimeout) {
+        if (queueCapacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("authvs.operation-log.queue-capacity and batch-size must be positive");
+        }
+        this.operationLogMapper = operationLogMapper;
+        this.journal = journal.getIfAvailable();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutNanos = blockTimeout.toNanos();
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    /**
+     * 提交一条日志，不等待写入数据库
+     *
+     * @return 是否已放入队列或日志文件（队列满、日志文件达到上限或写入器已停止时返回 false，计入丢弃数）
+     */
+    public boolean submit(OperationLog operationLog) {
+        if (operationLog.getCreatedAt() == null) {
+            operationLog.setCreatedAt(LocalDateTime.now());
+        }
+        boolean accepted = false;
+        if (running && journal != null && operationLog.getResponseSnapshot() == null) {
+            accepted = journal.append(operationLog);
+        } else if (running) {
+            try {
+                accepted = overflowPolicy == OverflowPolicy.BLOCK
+                        ? queue.offer(operationLog, blockTimeoutNanos, TimeUnit.NANOSECONDS)
+                        : queue.offer(operationLog);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (accepted) {
+            enqueued.increment();
+        } else {
+            recordDrop();
+        }
+        return accepted;
+    }
+
+    private void recordDrop() {
+        long total = dropped.incrementAndGet();
+        // 按 1、2、4、8... 条输出，持续过载时不刷屏
+        if ((total & (total - 1)) == 0) {
+            log.warn("操作日志队列已满或写入器已停止，累计丢弃 {} 条", total);
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        writerThread = Thread.ofPlatform().name("operation-log-writer").daemon().start(this::drainLoop);
+    }
+
+    @Override
+    public void stop() {
+        Thread thread;
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            thread = writerThread;
+        }
+        LockSupport.unpark(thread);
+        try {
+            // 写入线程最多等待一个 flush-interval 后发现已停止，写完剩余日志后退出
+            if (!thread.join(shutdownTimeout)) {
+                log.warn("操作日志写入器未能在 {} 内写完，剩余 {} 条未写入", shutdownTimeout, getQueueSize());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void drainLoop() {
+        if (journal != null) {
+            shipLoop();
+            return;
+        }
+        List<OperationLog> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                OperationLog first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // 凑满一批或等到 flush-interval 后写入；停止时不再等待
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || !running || remaining <= 0) {
+                        break;
+                    }
+                    OperationLog next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                batch.forEach(OperationLogWriter::renderResult);
+                flush(batch);
+            } catch (InterruptedException e) {
+                // 写入线程不会被中断，收到中断时按停止处理
+                running = false;
+            } catch (RuntimeException e) {
+                log.error("操作日志写入线程异常", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 日志文件模式：从已确认位置读取一批写入数据库，成功后推进位置；没有新日志或数据库不可用时等待 flush-interval
+     */
+    private void shipLoop() {
+        while (true) {
+            boolean stopping = !running;
+            boolean full = false;
+            try {
+                appendRenderedResults();
+                OperationLogJournal.Batch batch = journal.read(journal.getCheckpoint(), batchSize);
+                if (batch.logs().isEmpty() || flush(batch.logs())) {
+                    if (batch.next() != journal.getCheckpoint()) {
+                        journal.commit(batch.next(), batch.records());
+                    }
+                    full = batch.logs().size() == batchSize;
+                }
+            } catch (RuntimeException e) {
+                log.error("操作日志写入线程异常", e);
+            }
+            if (full) {
+                continue;
+            }
+            journal.force();
+            if (stopping) {
+                // 写完或数据库不可用时退出，未写入的日志留在文件中，下次启动继续写入
+                return;
+            }
+            LockSupport.parkNanos(flushIntervalNanos);
+        }
+    }
+
+    /**
+     * 日志文件模式：序列化内存队列中日志的返回结果后追加到日志文件
+     */
+    private void appendRenderedResults() {
+        OperationLog operationLog;
+        while ((operationLog = queue.poll()) != null) {
+            renderResult(operationLog);
+            if (!journal.append(operationLog)) {
+                recordDrop();
+            }
+        }
+    }
+
+    /**
+     * 将返回结果快照序列化为 responseResult（最多 MAX_RESULT_LENGTH 字符），并释放快照引用
+     */
+    private static void renderResult(OperationLog operationLog) {
+        Object snapshot = operationLog.getResponseSnapshot();
+        if (snapshot == null) {
+            return;
+        }
+        operationLog.setResponseSnapshot(null);
+        try {
+            operationLog.setResponseResult(BoundedJsonWriter.toJson(snapshot, MAX_RESULT_LENGTH));
+        } catch (RuntimeException e) {
+            log.warn("序列化操作日志返回结果失败: {}", e.toString());
+        }
+    }
+
+    /**
+     * 批量写入数据库
+     *
+     * @return 数据库不可用时返回 false（日志文件模式下稍后重试，内存队列模式下计为失败）
+     */
+    private boolean flush(List<OperationLog> batch) {
+        if (batch.isEmpty()) {
+            return true;
+        }
+        long start = System.nanoTime();
+        try {
+            operationLogMapper.insertBatch(batch);
+            written.add(batch.size());
+        } catch (DataAccessResourceFailureException | TransientDataAccessException e) {
+            if (journal != null) {
+                log.warn("数据库不可用，{} 条操作日志保留在日志文件中稍后重试: {}", batch.size(), e.getMessage());
+                return false;
+            }
+            failed.add(batch.size());
+            log.error("数据库不可用，丢弃 {} 条操作日志: {}", batch.size(), e.getMessage());
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                failed.increment();
+                log.error("保存操作日志失败", e);
+            } else {
+                log.warn("批量保存操作日志失败，改为逐条写入: {}", e.getMessage());
+                for (OperationLog operationLog : batch) {
+                    flushOne(operationLog);
+                }
+            }
+        } finally {
+            recordFlush(System.nanoTime() - start);
+        }
+        return true;
+    }
+
+    private void flushOne(OperationLog operationLog) {
+        try {
+            operationLogMapper.insertBatch(List.of(operationLog));
+            written.increment();
+        } catch (RuntimeException e) {
+            failed.increment();
+            log.error("保存操作日志失败", e);
+        }
+    }
+
+    private void recordFlush(long nanos) {
+        flushes.increment();
+        flushNanos.add(nanos);
+        lastFlushNanos = nanos;
+        maxFlushNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * 待写入数据库的日志数（内存队列或日志文件中）
+     */
+    public long getQueueSize() {
+        return journal != null ? journal.getPendingRecords() + queue.size() : queue.size();
+    }
+
+    /**
+     * 内存队列容量（日志文件模式下只容纳等待序列化返回结果的日志）
+     */
+    public int getQueueCapacity() {
+        return queue.size() + queue.remainingCapacity();
+    }
+
+    public boolean isJournalEnabled() {
+        return journal != null;
+    }
+
+    /**
+     * 日志文件中未写入数据库的数据大小（字节）
+     */
+    public long getJournalBytes() {
+        return journal != null ? journal.getPendingBytes() : 0;
+    }
+
+    public long getJournalMaxBytes() {
+        return journal != null ? journal.getMaxBytes() : 0;
+    }
+
+    /**
+     * 日志文件中校验失败或无法解码而被跳过的记录数
+     */
+    public long getJournalCorruptRecords() {
+        return journal != null ? journal.getCorruptRecords() : 0;
+    }
+
+    public long getEnqueued() {
+        return enqueued.sum();
+    }
+
+    /**
+     * 队列满或写入器停止后被丢弃的日志数
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getWritten() {
+        return written.sum();
+    }
+
+    /**
+     * 写入数据库失败的日志数
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public long getFlushes() {
+        return flushes.sum();
+    }
+
+    public double getAvgFlushMillis() {
+        long count = flushes.sum();
+        return count == 0 ? 0 : flushNanos.sum() / 1e6 / count;
+    }
+
+    public double getLastFlushMillis() {
+        return lastFlushNanos / 1e6;
+    }
+
+    public double getMaxFlushMillis() {
+        return maxFlushNanos.get() / 1e6;
+    }
+
+    /**
+     * 队列满时的处理策略
+     */
+    public enum OverflowPolicy {
+        /**
+         * 立即丢弃，请求线程不等待
+         */
+        DROP,
+        /**
+         * 最多等待 block-timeout，仍无空间时丢弃
+         */
+        BLOCK
+    }
+}
@@ -0,0 +1,269 @@
+package org.max.authvs.service;
+
+import org.max.authvs.entity.Permission;
+import org.max.authvs.entity.Role;
+import org.max.authvs.entity.RolePermission;
+import org.max.authvs.security.AuthorityIndex;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 不可变的 RBAC 快照：全部角色、权限、角色→权限关系和权限父子树
+ * <p>
+ * - 角色和权限按 ID 排序存放，ID 到下标通过二分查找，不使用装箱的 Map
+ * - 角色→权限、父→子关系使用压缩邻接数组（offsets + targets），下标为权限在数组中的位置
+ * - 每个角色提供的权限（ROLE_* 和启用的 PERM_*）在构建时计算好，直接使用 {@link AuthorityIndex} 中的共享实例
+ * - 快照构建后不再修改，数据变更时整体替换（见 {@link RbacSnapshotService}）
+ */
+public final class RbacSnapshot {
+
+    private static final Comparator<PermissionNode> MENU_ORDER = Comparator
+            .comparing(PermissionNode::sortOrder, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparingLong(PermissionNode::id);
+
+    private final long version;
+    private final long[] roleIds;
+    private final RoleNode[] roles;
+    private final long[] permissionIds;
+    private final PermissionNode[] permissions;
+    // 角色 i 的权限下标为 rolePermissions[rolePermissionOffsets[i] .. rolePermissionOffsets[i + 1])
+    private final int[] rolePermissionOffsets;
+    private final int[] rolePermissions;
+    // 权限 i 的子权限下标为 children[childOffsets[i] .. childOffsets[i + 1])，按菜单顺序排列
+    private final int[] childOffsets;
+    private final int[] children;
+    // 顶级权限（parentId 为 0 或空）的下标，按菜单顺序排列
+    private final int[] roots;
+    private final List<List<GrantedAuthority>> roleAuthorities;
+
+    private RbacSnapshot(long version, List<Role> roleRows, List<Permission> permissionRows,
+                         List<RolePermission> rolePermissionRows) {
+        this.version = version;
+
+        this.roles = roleRows.stream()
+                .map(RoleNode::of)
+                .sorted(Comparator.comparingLong(RoleNode::id))
+                .toArray(RoleNode[]::new);
+        this.roleIds = Arrays.stream(roles).mapToLong(RoleNode::id).toArray();
+        this.permissions = permissionRows.stream()
+                .map(PermissionNode::of)
+                .sorted(Comparator.comparingLong(PermissionNode::id))
+                .toArray(PermissionNode[]::new);
+        this.permissionIds = Arrays.stream(permissions).mapToLong(PermissionNode::id).toArray();
+
+        // 角色→权限：先计数再填充
+        int[] roleOf = new int[rolePermissionRows.size()];
+        int[] permissionOf = new int[rolePermissionRows.size()];
+        int[] offsets = new int[roles.length + 1];
+        int edges = 0;
+        for (RolePermission row : rolePermissionRows) {
+            int role = indexOf(roleIds, row.getRoleId());
+            int permission = indexOf(permissionIds, row.getPermissionId());
+            if (role >= 0 && permission >= 0) {
+                roleOf[edges] = role;
+                permissionOf[edges++] = permission;
+                offsets[role + 1]++;
+            }
+        }
+        for (int i = 0; i < roles.length; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] targets = new int[edges];
+        int[] cursor = Arrays.copyOf(offsets, roles.length);
+        for (int i = 0; i < edges; i++) {
+            targets[cursor[roleOf[i]]++] = permissionOf[i];
+        }
+        for (int i = 0; i < roles.length; i++) {
+            Arrays.sort(targets, offsets[i], offsets[i + 1]);
+        }
+        this.rolePermissionOffsets = offsets;
+        this.rolePermissions = targets;
+
+        // 父→子：按菜单顺序排序后分组，父权限不存在的节点不挂到树上
+        Integer[] ordered = new Integer[permissions.length];
+        for (int i = 0; i < ordered.length; i++) {
+            ordered[i] = i;
+        }
+        Arrays.sort(ordered, (a, b) -> MENU_ORDER.compare(permissions[a], permissions[b]));
+        int[] parents = new int[permissions.length];
+        int[] childCounts = new int[permissions.length + 1];
+        int rootCount = 0;
+        for (int i = 0; i < permissions.length; i++) {
+            Long parentId = permissions[i].parentId();
+            parents[i] = parentId == null || parentId == 0 ? -1 : indexOf(permissionIds, parentId);
+            if (parentId == null || parentId == 0) {
+                rootCount++;
+            } else if (parents[i] >= 0) {
+                childCounts[parents[i] + 1]++;
+            }
+        }
+        for (int i = 0; i < permissions.length; i++) {
+            childCounts[i + 1] += childCounts[i];
+        }
+        int[] childTargets = new int[childCounts[permissions.length]];
+        int[] childCursor = Arrays.copyOf(childCounts, permissions.length);
+        int[] rootTargets = new int[rootCount];
+        int rootCursor = 0;
+        for (int index : ordered) {
+            Long parentId = permissions[index].parentId();
+            if (parentId == null || parentId == 0) {
+                rootTargets[rootCursor++] = index;
+            } else if (parents[index] >= 0) {
+                childTargets[childCursor[parents[index]]++] = index;
+            }
+        }
+        this.childOffsets = childCounts;
+        this.children = childTargets;
+        this.roots = rootTargets;
+
+        // 每个角色提供的权限：启用的角色提供 ROLE_角色编码，角色关联的启用权限提供 PERM_权限编码
+        List<List<GrantedAuthority>> authorities = new ArrayList<>(roles.length);
+        for (int i = 0; i < roles.length; i++) {
+            List<GrantedAuthority> role = new ArrayList<>();
+            if (roles[i].enabled()) {
+                role.add(AuthorityIndex.authority("ROLE_" + roles[i].code()));
+            }
+            for (int j = offsets[i]; j < offsets[i + 1]; j++) {
+                if (permissions[targets[j]].enabled()) {
+                    role.add(AuthorityIndex.authority("PERM_" + permissions[targets[j]].code()));
+                }
+            }
+            authorities.add(List.copyOf(role));
+        }
+        this.roleAuthorities = List.copyOf(authorities);
+    }
+
+    /**
+     * 由数据库中的三张表构建快照
+     *
+     * @param version 构建时读取到的 RBAC 数据版本，未知时为 -1
+     */
+    public static RbacSnapshot build(long version, List<Role> roles, List<Permission> permissions,
+                                     List<RolePermission> rolePermissions) {
+        return new RbacSnapshot(version, roles, permissions, rolePermissions);
+    }
+
+    public long version() {
+        return version;
+    }
+
+    /**
+     * 按ID查询角色，不存在时返回 null
+     */
+    public RoleNode role(Long roleId) {
+        int index = roleId != null ? indexOf(roleIds, roleId) : -1;
+        return index >= 0 ? roles[index] : null;
+    }
+
+    /**
+     * 全部角色（按ID排序）
+     */
+    public List<RoleNode> roles() {
+        return List.of(roles);
+    }
+
+    /**
+     * 角色提供的权限（ROLE_* 和 PERM_*），角色不存在时返回空列表
+     */
+    public List<GrantedAuthority> authoritiesOf(Long roleId) {
+        int index = roleId != null ? indexOf(roleIds, roleId) : -1;
+        return index >= 0 ? roleAuthorities.get(index) : List.of();
+    }
+
+    /**
+     * 多个角色关联的启用权限（去重，按权限ID排序）；不判断角色是否启用
+     */
+    public List<PermissionNode> permissionsOf(Collection<Long> roleIdList) {
+        boolean[] selected = new boolean[permissions.length];
+        for (Long roleId : roleIdList) {
+            int role = roleId != null ? indexOf(roleIds, roleId) : -1;
+            if (role < 0) {
+                continue;
+            }
+            for (int j = rolePermissionOffsets[role]; j < rolePermissionOffsets[role + 1]; j++) {
+                selected[rolePermissions[j]] = true;
+            }
+        }
+        List<PermissionNode> result = new ArrayList<>();
+        for (int i = 0; i < permissions.length; i++) {
+            if (selected[i] && permissions[i].enabled()) {
+                result.add(permissions[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 指定类型的全部启用权限（按权限ID排序）
+     */
+    public List<PermissionNode> permissionsOfType(int permissionType) {
+        List<PermissionNode> result = new ArrayList<>();
+        for (PermissionNode permission : permissions) {
+            if (permission.enabled() && permission.type() != null && permission.type() == permissionType) {
+                result.add(permission);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 顶级权限（按菜单顺序）
+     */
+    public List<PermissionNode> rootPermissions() {
+        return nodes(roots, 0, roots.length);
+    }
+
+    /**
+     * 直接子权限（按菜单顺序），权限不存在时返回空列表
+     */
+    public List<PermissionNode> childrenOf(long permissionId) {
+        int index = indexOf(permissionIds, permissionId);
+        return index >= 0 ? nodes(children, childOffsets[index], childOffsets[index + 1]) : List.of();
+    }
+
+    private List<PermissionNode> nodes(int[] indices, int from, int to) {
+        PermissionNode[] result = new PermissionNode[to - from];
+        for (int i = from; i < to; i++) {
+            result[i - from] = permissions[indices[i]];
+        }
+        return List.of(result);
+    }
+
+    private static int indexOf(long[] sortedIds, Long id) {
+        if (id == null) {
+            return -1;
+        }
+        int index = Arrays.binarySearch(sortedIds, id);
+        return index >= 0 ? index : -1;
+    }
+
+    /**
+     * 角色（快照内的只读副本）
+     */
+    public record RoleNode(long id, String name, String code, Integer type, String description, boolean enabled) {
+
+        static RoleNode of(Role role) {
+            return new RoleNode(role.getId(), role.getRoleName(), role.getRoleCode(), role.getRoleType(),
+                    role.getDescription(), Boolean.TRUE.equals(role.getEnabled()));
+        }
+    }
+
+    /**
+     * 权限（快照内的只读副本）
+     */
+    public record PermissionNode(long id, String name, String code, Integer type, String modulePath,
+                                 Long parentId, Integer sortOrder, String description, boolean enabled) {
+
+        static PermissionNode of(Permission permission) {
+            return new PermissionNode(permission.getId(), permission.getPermissionName(),
+                    permission.getPermissionCode(), permission.getPermissionType(), permission.getModulePath(),
+                    permission.getParentId(), permission.getSortOrder(), permission.getDescription(),
+                    Boolean.TRUE.equals(permission.getEnabled()));
+        }
+    }
+}
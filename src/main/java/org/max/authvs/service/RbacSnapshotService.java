@@ -0,0 +1,132 @@
+package org.max.authvs.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.max.authvs.mapper.PermissionMapper;
+import org.max.authvs.mapper.RbacVersionMapper;
+import org.max.authvs.mapper.RoleMapper;
+import org.max.authvs.mapper.RolePermissionMapper;
+import org.max.authvs.security.PermissionCacheService;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * RBAC 快照服务：角色、权限及其关系常驻内存，业务查询不再访问数据库
+ * <p>
+ * - 启动后加载一次；首次访问时尚未加载（或启动时数据库不可用）则同步加载
+ * - 定期读取 rbac_version 版本号（主键查询），版本变化时重新加载并整体替换快照
+ * - 版本表不存在（未执行升级脚本）时退化为每 5 分钟全量重新加载
+ * - 替换快照时比较各角色提供的权限，变化的角色清理其权限缓存（{@link PermissionCacheService#evictRole}）
+ */
+@Service
+@Slf4j
+public class RbacSnapshotService {
+
+    private static final long UNKNOWN_VERSION = -1;
+    private static final long FULL_RELOAD_INTERVAL_MS = 5 * 60 * 1000;
+
+    private final RoleMapper roleMapper;
+    private final PermissionMapper permissionMapper;
+    private final RolePermissionMapper rolePermissionMapper;
+    private final RbacVersionMapper rbacVersionMapper;
+    private final PermissionCacheService permissionCacheService;
+    private final AtomicReference<RbacSnapshot> snapshot = new AtomicReference<>();
+    private volatile long loadedAt;
+
+    public RbacSnapshotService(RoleMapper roleMapper,
+                               PermissionMapper permissionMapper,
+                               RolePermissionMapper rolePermissionMapper,
+                               RbacVersionMapper rbacVersionMapper,
+                               PermissionCacheService permissionCacheService) {
+        this.roleMapper = roleMapper;
+        this.permissionMapper = permissionMapper;
+        this.rolePermissionMapper = rolePermissionMapper;
+        this.rbacVersionMapper = rbacVersionMapper;
+        this.permissionCacheService = permissionCacheService;
+    }
+
+    /**
+     * 当前快照，尚未加载时同步加载
+     *
+     * @throws RuntimeException 尚未加载且数据库不可用时抛出
+     */
+    public RbacSnapshot current() {
+        RbacSnapshot current = snapshot.get();
+        return current != null ? current : reload();
+    }
+
+    /**
+     * 启动后加载快照；构建快照时登记各角色提供的权限，使常用权限获得较小的索引，权限位图更紧凑
+     * 数据库不可用时跳过，首次访问或下次定时检查时再加载
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        Thread.ofVirtual().name("rbac-snapshot-load").start(() -> {
+            try {
+                reload();
+            } catch (RuntimeException e) {
+                log.warn("Failed to load RBAC snapshot: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 检查 RBAC 数据版本，变化时重新加载
+     */
+    @Scheduled(fixedDelayString = "${authvs.rbac.refresh-interval:10s}", initialDelayString = "${authvs.rbac.refresh-interval:10s}")
+    public void refreshIfChanged() {
+        try {
+            RbacSnapshot current = snapshot.get();
+            long version = readVersion();
+            if (current == null
+                    || version != current.version()
+                    || version == UNKNOWN_VERSION && System.currentTimeMillis() - loadedAt >= FULL_RELOAD_INTERVAL_MS) {
+                reload();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to refresh RBAC snapshot: {}", e.getMessage());
+        }
+    }
+
+    private synchronized RbacSnapshot reload() {
+        RbacSnapshot previous = snapshot.get();
+        // 先读版本再读数据：期间发生的变更会使版本号不一致，下次检查时再次加载
+        long version = readVersion();
+        if (previous != null && version != UNKNOWN_VERSION && version == previous.version()) {
+            return previous;
+        }
+        RbacSnapshot next = RbacSnapshot.build(version,
+                roleMapper.selectList(null),
+                permissionMapper.selectList(null),
+                rolePermissionMapper.selectList(null));
+        snapshot.set(next);
+        loadedAt = System.currentTimeMillis();
+        if (previous != null) {
+            evictChangedRoles(previous, next);
+        }
+        log.info("RBAC snapshot loaded: version={}, roles={}", version, next.roles().size());
+        return next;
+    }
+
+    private void evictChangedRoles(RbacSnapshot previous, RbacSnapshot next) {
+        for (RbacSnapshot.RoleNode role : previous.roles()) {
+            if (!Objects.equals(previous.authoritiesOf(role.id()), next.authoritiesOf(role.id()))) {
+                permissionCacheService.evictRole(role.id());
+            }
+        }
+    }
+
+    private long readVersion() {
+        try {
+            Long version = rbacVersionMapper.selectVersion();
+            return version != null ? version : UNKNOWN_VERSION;
+        } catch (RuntimeException e) {
+            log.debug("RBAC version unavailable: {}", e.getMessage());
+            return UNKNOWN_VERSION;
+        }
+    }
+}
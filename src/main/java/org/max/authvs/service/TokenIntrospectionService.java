@@ -0,0 +1,202 @@
+package org.max.authvs.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.jsonwebtoken.JwtException;
+import lombok.extern.slf4j.Slf4j;
+import org.max.authvs.api.dto.oauth.out.IntrospectionVo;
+import org.max.authvs.entity.OAuthClient;
+import org.max.authvs.mapper.OAuthClientMapper;
+import org.max.authvs.security.CustomUserDetails;
+import org.max.authvs.security.JwtService;
+import org.max.authvs.security.VerifiedToken;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Token 内省服务（RFC 7662），供网关和内部服务校验 authvs 签发的令牌
+ * <p>
+ * - 客户端凭证校验通过后缓存其密钥摘要，后续请求不再执行 BCrypt
+ * - 不存在或已禁用的客户端ID短期缓存，不再查库；同一来源地址对同一客户端每分钟密钥错误达到上限后直接拒绝，不再执行 BCrypt
+ * - 内省结果按 Token 摘要短期缓存（有界），避免重复读取权限缓存
+ * - 撤销与纪元检查每次都执行（本地内存判断），撤销后立即返回 inactive，不受结果缓存影响
+ */
+@Slf4j
+@Service
+public class TokenIntrospectionService {
+
+    private static final int RESULT_CACHE_SIZE = 50_000;
+    private static final int CLIENT_CACHE_SIZE = 1_000;
+    // 客户端被禁用或重置密钥后，其他节点最多在该时间内仍接受旧凭证
+    private static final Duration CLIENT_CACHE_TTL = Duration.ofMinutes(1);
+    private static final int REJECTED_CACHE_SIZE = 10_000;
+    // 每个 (客户端ID, 来源地址) 在一个窗口内允许的密钥错误次数
+    private static final int MAX_FAILURES = 5;
+    private static final Duration FAILURE_WINDOW = Duration.ofMinutes(1);
+
+    private final JwtService jwtService;
+    private final CustomUserDetailsService userDetailsService;
+    private final OAuthClientMapper clientMapper;
+    private final PasswordEncoder passwordEncoder;
+    // Token 摘要 -> 用户权限快照
+    private final Cache<String, ActiveToken> results;
+    // clientId -> 已校验通过的密钥摘要
+    private final Cache<String, byte[]> verifiedClients = Caffeine.newBuilder()
+            .maximumSize(CLIENT_CACHE_SIZE)
+            .expireAfterWrite(CLIENT_CACHE_TTL)
+            .build();
+    // 不存在或已禁用的 clientId
+    private final Cache<String, Boolean> unknownClients = Caffeine.newBuilder()
+            .maximumSize(REJECTED_CACHE_SIZE)
+            .expireAfterWrite(CLIENT_CACHE_TTL)
+            .build();
+    // (clientId, 来源地址) -> 窗口内的密钥错误次数（窗口从首次错误开始计算）
+    private final Cache<FailureKey, AtomicInteger> failures = Caffeine.newBuilder()
+            .maximumSize(REJECTED_CACHE_SIZE)
+            .expireAfterWrite(FAILURE_WINDOW)
+            .build();
+
+    public TokenIntrospectionService(JwtService jwtService,
+                                     CustomUserDetailsService userDetailsService,
+                                     OAuthClientMapper clientMapper,
+                                     PasswordEncoder passwordEncoder,
+                                     @Value("${authvs.introspection.cache-ttl:10s}") Duration cacheTtl) {
+        this.jwtService = jwtService;
+        this.userDetailsService = userDetailsService;
+        this.clientMapper = clientMapper;
+        this.passwordEncoder = passwordEncoder;
+        this.results = Caffeine.newBuilder()
+                .maximumSize(RESULT_CACHE_SIZE)
+                .expireAfterWrite(cacheTtl)
+                .build();
+    }
+
+    /**
+     * 校验客户端凭证（oauth_clients），仅启用的客户端可调用内省接口
+     * <p>
+     * 内省接口无需登录，未知客户端和超过错误上限的来源在查库和 BCrypt 之前拒绝。
+     * 错误上限按来源地址计算，其他来源的错误不会锁定使用正确凭证的客户端
+     *
+     * @param remoteAddr 连接的来源地址（经可信代理时由 server.forward-headers-strategy 还原）
+     */
+    public boolean authenticateClient(String clientId, String clientSecret, String remoteAddr) {
+        if (clientId == null || clientId.isEmpty() || clientSecret == null || clientSecret.isEmpty()) {
+            return false;
+        }
+        byte[] secretDigest = sha256(clientSecret);
+        byte[] cached = verifiedClients.getIfPresent(clientId);
+        if (cached != null) {
+            return MessageDigest.isEqual(cached, secretDigest);
+        }
+        if (unknownClients.getIfPresent(clientId) != null) {
+            return false;
+        }
+        FailureKey failureKey = new FailureKey(clientId, remoteAddr != null ? remoteAddr : "");
+        AtomicInteger failed = failures.getIfPresent(failureKey);
+        if (failed != null && failed.get() >= MAX_FAILURES) {
+            return false;
+        }
+        OAuthClient client = clientMapper.selectOne(new LambdaQueryWrapper<OAuthClient>()
+                .eq(OAuthClient::getClientId, clientId));
+        if (client == null || !Boolean.TRUE.equals(client.getEnabled())) {
+            unknownClients.put(clientId, Boolean.TRUE);
+            log.warn("Introspection client authentication failed: clientId={}", clientId);
+            return false;
+        }
+        if (!passwordEncoder.matches(clientSecret, client.getClientSecret())) {
+            int count = failures.get(failureKey, key -> new AtomicInteger()).incrementAndGet();
+            log.warn("Introspection client authentication failed: clientId={}, remoteAddr={}, failures={}",
+                    clientId, remoteAddr, count);
+            return false;
+        }
+        failures.invalidate(failureKey);
+        verifiedClients.put(clientId, secretDigest);
+        return true;
+    }
+
+    /**
+     * 客户端被创建、启用、禁用、修改或重置密钥时清除本节点的凭证缓存和错误计数
+     */
+    public void evictClient(String clientId) {
+        if (clientId != null) {
+            verifiedClients.invalidate(clientId);
+            unknownClients.invalidate(clientId);
+            failures.asMap().keySet().removeIf(key -> key.clientId().equals(clientId));
+        }
+    }
+
+    /**
+     * 内省 Token
+     *
+     * @param token 访问令牌原文
+     * @return 有效时返回令牌信息，否则返回 {"active": false}
+     */
+    public IntrospectionVo introspect(String token) {
+        if (token == null || token.isEmpty()) {
+            return IntrospectionVo.inactive();
+        }
+        VerifiedToken verified;
+        try {
+            verified = jwtService.verify(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return IntrospectionVo.inactive();
+        }
+        if (verified.subject() == null || verified.isExpired() || jwtService.isTokenRevoked(verified, token)) {
+            return IntrospectionVo.inactive();
+        }
+        ActiveToken active = results.get(verified.digest(), key -> loadActiveToken(verified));
+        if (active == null || !active.enabled()) {
+            return IntrospectionVo.inactive();
+        }
+        return new IntrospectionVo(
+                true,
+                verified.subject(),
+                verified.subject(),
+                verified.userId(),
+                verified.deviceType(),
+                "Bearer",
+                verified.expiresAt().getEpochSecond(),
+                verified.issuedAt() != null ? verified.issuedAt().getEpochSecond() : null,
+                verified.jti(),
+                active.authorities()
+        );
+    }
+
+    /**
+     * 读取用户权限：优先权限缓存，未命中时加载（并回填缓存，同一用户的并发加载会被合并）
+     */
+    private ActiveToken loadActiveToken(VerifiedToken verified) {
+        try {
+            CustomUserDetails details = (CustomUserDetails) userDetailsService.loadUserByUsername(verified.subject());
+            return new ActiveToken(details.isEnabled(),
+                    details.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+        } catch (UsernameNotFoundException e) {
+            return new ActiveToken(false, List.of());
+        }
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record FailureKey(String clientId, String remoteAddr) {
+    }
+
+    private record ActiveToken(boolean enabled, List<String> authorities) {
+    }
+}
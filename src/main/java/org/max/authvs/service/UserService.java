@@ -11,12 +11,12 @@ import org.max.authvs.api.dto.user.out.UserDetailVo;
 import org.max.authvs.api.dto.user.out.UserListVo;
 import org.max.authvs.entity.*;
 import org.max.authvs.enums.UserType;
-import org.max.authvs.mapper.*;
+import org.max.authvs.mapper.UserMapper;
 import org.springframework.stereotype.Service;
 
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
@@ -27,21 +27,11 @@ import java.util.stream.Collectors;
 public class UserService {
 
     private final UserMapper userMapper;
-    private final UserRoleMapper userRoleMapper;
-    private final RoleMapper roleMapper;
-    private final RolePermissionMapper rolePermissionMapper;
-    private final PermissionMapper permissionMapper;
-
-    public UserService(UserMapper userMapper,
-                       UserRoleMapper userRoleMapper,
-                       RoleMapper roleMapper,
-                       RolePermissionMapper rolePermissionMapper,
-                       PermissionMapper permissionMapper) {
+    private final RbacSnapshotService rbacSnapshotService;
+
+    public UserService(UserMapper userMapper, RbacSnapshotService rbacSnapshotService) {
         this.userMapper = userMapper;
-        this.userRoleMapper = userRoleMapper;
-        this.roleMapper = roleMapper;
-        this.rolePermissionMapper = rolePermissionMapper;
-        this.permissionMapper = permissionMapper;
+        this.rbacSnapshotService = rbacSnapshotService;
     }
 
     /**
@@ -95,64 +85,42 @@ public class UserService {
      * 根据用户ID获取用户详细信息
      */
     public UserDetailVo getUserDetailById(Long userId) {
-        User user = userMapper.selectById(userId);
+        // 一次联表查询用户及其角色ID，角色和权限详情从 RBAC 快照获取
+        List<UserWithRole> rows = userMapper.selectWithRolesByUserId(userId);
 
-        if (user == null) {
+        if (rows.isEmpty()) {
             return null;
         }
-
-        List<UserDetailVo.RoleVo> roleVos = new ArrayList<>();
-        List<UserDetailVo.PermissionVo> permissionVos = new ArrayList<>();
-
-        // 2. 查询用户的角色ID列表
-        List<UserRole> userRoles = userRoleMapper.selectList(
-                new LambdaQueryWrapper<UserRole>()
-                        .eq(UserRole::getUserId, user.getId())
-        );
-
-        List<Long> roleIds = userRoles.stream()
-            .map(UserRole::getRoleId)
+        UserWithRole user = rows.getFirst();
+        List<Long> roleIds = rows.stream()
+            .map(UserWithRole::getRoleId)
+            .filter(Objects::nonNull)
+            .toList();
+        RbacSnapshot rbac = rbacSnapshotService.current();
+
+        List<UserDetailVo.RoleVo> roleVos = roleIds.stream()
+            .map(rbac::role)
+            .filter(role -> role != null && role.enabled())
+            .map(role -> new UserDetailVo.RoleVo(
+                role.id(),
+                role.name(),
+                role.code(),
+                role.type(),
+                role.description()
+            ))
             .collect(Collectors.toList());
 
-        if (!roleIds.isEmpty()) {
-            List<Role> roles = roleMapper.selectByIds(roleIds);
-            roleVos = roles.stream()
-                .filter(role -> Boolean.TRUE.equals(role.getEnabled()))
-                .map(role -> new UserDetailVo.RoleVo(
-                    role.getId(),
-                    role.getRoleName(),
-                    role.getRoleCode(),
-                    role.getRoleType(),
-                    role.getDescription()
-                ))
-                .collect(Collectors.toList());
-        }
-
-        List<RolePermission> rolePermissions = roleIds.isEmpty() ? new ArrayList<>() : rolePermissionMapper.selectList(
-            new LambdaQueryWrapper<RolePermission>()
-                .in(RolePermission::getRoleId, roleIds)
-        );
-
-        List<Long> permissionIds = rolePermissions.stream()
-            .map(RolePermission::getPermissionId)
-            .distinct()
+        List<UserDetailVo.PermissionVo> permissionVos = rbac.permissionsOf(roleIds).stream()
+            .map(permission -> new UserDetailVo.PermissionVo(
+                permission.id(),
+                permission.name(),
+                permission.code(),
+                permission.type(),
+                permission.modulePath(),
+                permission.description()
+            ))
             .collect(Collectors.toList());
 
-        if (!permissionIds.isEmpty()) {
-            List<Permission> permissionsEntity = permissionMapper.selectByIds(permissionIds);
-            permissionVos = permissionsEntity.stream()
-                .filter(permission -> Boolean.TRUE.equals(permission.getEnabled()))
-                .map(permission -> new UserDetailVo.PermissionVo(
-                    permission.getId(),
-                    permission.getPermissionName(),
-                    permission.getPermissionCode(),
-                    permission.getPermissionType(),
-                    permission.getModulePath(),
-                    permission.getDescription()
-                ))
-                .collect(Collectors.toList());
-        }
-
         return new UserDetailVo(
             user.getId(),
             user.getUsername(),
@@ -0,0 +1,330 @@
+package org.max.authvs.utils;
+
+import cn.hutool.core.util.DesensitizedUtil;
+import org.max.authvs.annotation.Sensitive;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 有长度上限的 JSON 写入器，用于操作日志记录请求参数
+ * <p>
+ * - 边遍历对象边写入，达到上限即停止，大对象的开销只与上限有关，与对象大小无关
+ * - 每个类的属性列表（读取方式、是否敏感）首次使用时计算并缓存在 {@link ClassValue} 中
+ * - 标记 {@link Sensitive} 的属性，以及名称为 password / newPassword / oldPassword 的属性和 Map 键，写入时直接脱敏，
+ *   不再先序列化再用正则替换
+ * - 与 Hutool JSONUtil 一致：对象中值为 null 的属性不输出；截断时末尾追加 "..."
+ */
+public final class BoundedJsonWriter {
+
+    private static final String MASK = "******";
+    private static final String ELLIPSIS = "...";
+    private static final int MAX_DEPTH = 16;
+    // 未标注 @Sensitive 时按名称识别的敏感属性（兼容原有按名称脱敏的规则）
+    private static final Set<String> SECRET_NAMES = Set.of("password", "newPassword", "oldPassword");
+
+    private static final ClassValue<Property[]> PLANS = new ClassValue<>() {
+        @Override
+        protected Property[] computeValue(Class<?> type) {
+            return plan(type);
+        }
+    };
+
+    private final StringBuilder out;
+    private final int limit;
+    private boolean truncated;
+
+    public BoundedJsonWriter(int limit) {
+        this.limit = limit;
+        this.out = new StringBuilder(Math.min(limit, 256));
+    }
+
+    /**
+     * 写入一个值；已达到上限时不再写入
+     */
+    public BoundedJsonWriter value(Object value) {
+        if (!truncated) {
+            try {
+                write(value, null, 0);
+            } catch (LimitReached e) {
+                truncated = true;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * 写入分隔符（不做 JSON 转义）
+     */
+    public BoundedJsonWriter separator(char c) {
+        if (!truncated) {
+            try {
+                append(c);
+            } catch (LimitReached e) {
+                truncated = true;
+            }
+        }
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return out.isEmpty();
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * 写入的内容，被截断时末尾追加 "..."
+     */
+    @Override
+    public String toString() {
+        return truncated ? out + ELLIPSIS : out.toString();
+    }
+
+    /**
+     * 序列化单个对象，最多 limit 个字符（截断时另加 "..."）
+     */
+    public static String toJson(Object value, int limit) {
+        return new BoundedJsonWriter(limit).value(value).toString();
+    }
+
+    private void write(Object value, Sensitive.Type mask, int depth) {
+        if (value == null) {
+            append("null");
+        } else if (mask != null) {
+            writeMasked(value, mask);
+        } else if (value instanceof CharSequence s) {
+            writeString(s);
+        } else if (value instanceof Number || value instanceof Boolean) {
+            append(value.toString());
+        } else if (value instanceof Enum<?> e) {
+            writeString(e.name());
+        } else if (value instanceof Character || value instanceof UUID
+                || value instanceof TemporalAccessor || value instanceof Date) {
+            writeString(value.toString());
+        } else if (depth >= MAX_DEPTH) {
+            writeString(ELLIPSIS);
+        } else if (value instanceof Map<?, ?> map) {
+            writeMap(map, depth);
+        } else if (value instanceof Collection<?> collection) {
+            append('[');
+            boolean first = true;
+            for (Object element : collection) {
+                if (!first) {
+                    append(',');
+                }
+                first = false;
+                write(element, null, depth + 1);
+            }
+            append(']');
+        } else if (value.getClass().isArray()) {
+            append('[');
+            for (int i = 0, n = Array.getLength(value); i < n; i++) {
+                if (i > 0) {
+                    append(',');
+                }
+                write(Array.get(value, i), null, depth + 1);
+            }
+            append(']');
+        } else {
+            writeObject(value, depth);
+        }
+    }
+
+    private void writeMap(Map<?, ?> map, int depth) {
+        append('{');
+        boolean first = true;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (entry.getValue() == null) {
+                continue;
+            }
+            if (!first) {
+                append(',');
+            }
+            first = false;
+            String key = String.valueOf(entry.getKey());
+            writeString(key);
+            append(':');
+            write(entry.getValue(), SECRET_NAMES.contains(key) ? Sensitive.Type.SECRET : null, depth + 1);
+        }
+        append('}');
+    }
+
+    private void writeObject(Object value, int depth) {
+        Property[] properties = PLANS.get(value.getClass());
+        if (properties == null) {
+            writeString(value.toString());
+            return;
+        }
+        append('{');
+        boolean first = true;
+        for (Property property : properties) {
+            Object propertyValue = property.read(value);
+            if (propertyValue == null) {
+                continue;
+            }
+            if (!first) {
+                append(',');
+            }
+            first = false;
+            append(property.quotedName());
+            write(propertyValue, property.mask(), depth + 1);
+        }
+        append('}');
+    }
+
+    private void writeMasked(Object value, Sensitive.Type mask) {
+        String masked = switch (mask) {
+            case SECRET -> MASK;
+            case EMAIL -> DesensitizedUtil.email(value.toString());
+            case MOBILE_PHONE -> DesensitizedUtil.mobilePhone(value.toString());
+        };
+        writeString(masked);
+    }
+
+    private void writeString(CharSequence s) {
+        append('"');
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> append("\\\"");
+                case '\\' -> append("\\\\");
+                case '\n' -> append("\\n");
+                case '\r' -> append("\\r");
+                case '\t' -> append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        append("\\u%04x".formatted((int) c));
+                    } else {
+                        append(c);
+                    }
+                }
+            }
+        }
+        append('"');
+    }
+
+    private void append(char c) {
+        if (out.length() >= limit) {
+            throw LimitReached.INSTANCE;
+        }
+        out.append(c);
+    }
+
+    private void append(String s) {
+        int room = limit - out.length();
+        if (s.length() > room) {
+            out.append(s, 0, Math.max(room, 0));
+            throw LimitReached.INSTANCE;
+        }
+        out.append(s);
+    }
+
+    /**
+     * 计算类的属性列表；JDK 等框架类返回 null（按 toString 输出）
+     * 字段按声明顺序（父类在前），优先通过 getter 读取，没有 getter 时直接读字段
+     */
+    private static Property[] plan(Class<?> type) {
+        String name = type.getName();
+        if (name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jakarta.")
+                || name.startsWith("org.springframework.")) {
+            return null;
+        }
+        List<Property> properties = new ArrayList<>();
+        if (type.isRecord()) {
+            for (RecordComponent component : type.getRecordComponents()) {
+                Method accessor = component.getAccessor();
+                if (accessor.trySetAccessible()) {
+                    properties.add(Property.of(component.getName(), accessor, null,
+                            maskOf(component.getName(), component.getAnnotation(Sensitive.class))));
+                }
+            }
+            return properties.toArray(Property[]::new);
+        }
+        List<Class<?>> hierarchy = new ArrayList<>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            hierarchy.addFirst(c);
+        }
+        for (Class<?> c : hierarchy) {
+            for (Field field : c.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())
+                        || field.isSynthetic()) {
+                    continue;
+                }
+                Sensitive.Type mask = maskOf(field.getName(), field.getAnnotation(Sensitive.class));
+                Method getter = getter(type, field);
+                if (getter != null) {
+                    properties.add(Property.of(field.getName(), getter, null, mask));
+                } else if (field.trySetAccessible()) {
+                    properties.add(Property.of(field.getName(), null, field, mask));
+                }
+            }
+        }
+        return properties.toArray(Property[]::new);
+    }
+
+    private static Method getter(Class<?> type, Field field) {
+        String suffix = Character.toUpperCase(field.getName().charAt(0)) + field.getName().substring(1);
+        for (String prefix : field.getType() == boolean.class ? List.of("is", "get") : List.of("get")) {
+            try {
+                Method method = type.getMethod(prefix + suffix);
+                if (method.getParameterCount() == 0 && method.trySetAccessible()) {
+                    return method;
+                }
+            } catch (NoSuchMethodException ignored) {
+                // 继续尝试下一个前缀
+            }
+        }
+        return null;
+    }
+
+    private static Sensitive.Type maskOf(String name, Sensitive annotation) {
+        if (annotation != null) {
+            return annotation.value();
+        }
+        return SECRET_NAMES.contains(name) ? Sensitive.Type.SECRET : null;
+    }
+
+    /**
+     * 类的一个属性：名称（已加引号和冒号）、读取方式、脱敏方式
+     */
+    private record Property(String quotedName, Method getter, Field field, Sensitive.Type mask) {
+
+        static Property of(String name, Method getter, Field field, Sensitive.Type mask) {
+            return new Property("\"" + name + "\":", getter, field, mask);
+        }
+
+        Object read(Object target) {
+            try {
+                return getter != null ? getter.invoke(target) : field.get(target);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 达到长度上限，结束写入；不记录堆栈
+     */
+    private static final class LimitReached extends RuntimeException {
+
+        private static final LimitReached INSTANCE = new LimitReached();
+
+        private LimitReached() {
+            super(null, null, false, false);
+        }
+    }
+}
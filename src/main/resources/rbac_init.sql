@@ -15,6 +15,7 @@ DROP TABLE IF EXISTS roles;
 DROP TABLE IF EXISTS users;
 
 -- 1. 用户表 (users) - 支持后台管理员和门户用户
+-- 已有库升级：ALTER TABLE users DROP INDEX idx_username, ADD UNIQUE KEY uk_username (username);
 CREATE TABLE users (
     id BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '用户ID',
     username VARCHAR(50) NOT NULL COMMENT '用户名',
@@ -25,7 +26,7 @@ CREATE TABLE users (
     enabled TINYINT(1) NOT NULL DEFAULT 1 COMMENT '是否启用',
     created_at TIMESTAMP NULL COMMENT '创建时间',
     updated_at TIMESTAMP NULL COMMENT '更新时间',
-    KEY idx_username (username),
+    UNIQUE KEY uk_username (username),
     KEY idx_email (email),
     KEY idx_phone (phone),
     KEY idx_user_type (user_type)
@@ -158,6 +159,39 @@ INSERT INTO role_permissions (role_id, permission_id) VALUES
 (3, 3), (3, 8),
 -- 审计管理员：审计管理父级 + 子级
 (4, 2), (4, 7);
+
+-- =============================================
+-- RBAC 数据版本：roles / permissions / role_permissions 任意变更时加一，
+-- 应用定期读取该版本号，变化时重新加载内存中的 RBAC 快照（已有库升级时单独执行本节）
+-- =============================================
+DROP TABLE IF EXISTS rbac_version;
+
+CREATE TABLE rbac_version (
+    id TINYINT PRIMARY KEY COMMENT '固定为 1',
+    version BIGINT NOT NULL DEFAULT 0 COMMENT 'RBAC 数据版本'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='RBAC数据版本表';
+
+INSERT INTO rbac_version (id, version) VALUES (1, 0);
+
+DROP TRIGGER IF EXISTS trg_roles_ai;
+DROP TRIGGER IF EXISTS trg_roles_au;
+DROP TRIGGER IF EXISTS trg_roles_ad;
+DROP TRIGGER IF EXISTS trg_permissions_ai;
+DROP TRIGGER IF EXISTS trg_permissions_au;
+DROP TRIGGER IF EXISTS trg_permissions_ad;
+DROP TRIGGER IF EXISTS trg_role_permissions_ai;
+DROP TRIGGER IF EXISTS trg_role_permissions_au;
+DROP TRIGGER IF EXISTS trg_role_permissions_ad;
+
+CREATE TRIGGER trg_roles_ai AFTER INSERT ON roles FOR EACH ROW UPDATE rbac_version SET version = version + 1 WHERE id = 1;
+CREATE TRIGGER trg_roles_au AFTER UPDATE ON roles FOR EACH ROW UPDATE rbac_version SET version = version + 1 WHERE id = 1;
+CREATE TRIGGER trg_roles_ad AFTER DELETE ON roles FOR EACH ROW UPDATE rbac_version SET version = version + 1 WHERE id = 1;
+CREATE TRIGGER trg_permissions_ai AFTER INSERT ON permissions FOR EACH ROW UPDATE rbac_version SET version = version + 1 WHERE id = 1;
+CREATE TRIGGER trg_permissions_au AFTER UPDATE ON permissions FOR EACH ROW UPDATE rbac_version SET version = version + 1 WHERE id = 1;
+CREATE TRIGGER trg_permissions_ad AFTER DELETE ON permissions FOR EACH ROW UPDATE rbac_version SET version = version + 1 WHERE id = 1;
+CREATE TRIGGER trg_role_permissions_ai AFTER INSERT ON role_permissions FOR EACH ROW UPDATE rbac_version SET version = version + 1 WHERE id = 1;
+CREATE TRIGGER trg_role_permissions_au AFTER UPDATE ON role_permissions FOR EACH ROW UPDATE rbac_version SET version = version + 1 WHERE id = 1;
+CREATE TRIGGER trg_role_permissions_ad AFTER DELETE ON role_permissions FOR EACH ROW UPDATE rbac_version SET version = version + 1 WHERE id = 1;
 -- =============================================
 -- OIDC客户端表
 -- =============================================
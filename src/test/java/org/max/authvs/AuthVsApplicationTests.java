@@ -3,7 +3,7 @@ package org.max.authvs;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "authvs.jwt.node-local-keys=true")
 class AuthVsApplicationTests {
 
     @Test
@@ -0,0 +1,51 @@
+package org.max.authvs.benchmark;
+
+import org.max.authvs.security.AccessChecker;
+import org.max.authvs.security.CustomUserDetails;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AccessChecker.perm：每个 @PreAuthorize 接口都会执行
+ * 安全上下文是线程绑定的，因此使用线程级 State，在基准线程上完成初始化
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AccessCheckerBenchmark {
+
+    @Param({"10", "50", "200"})
+    public int authorityCount;
+
+    private final AccessChecker accessChecker = new AccessChecker();
+    private String grantedPermission;
+
+    @Setup
+    public void setUp() {
+        CustomUserDetails user = BenchmarkFixtures.user(authorityCount, false);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        grantedPermission = BenchmarkFixtures.lastPermission(authorityCount);
+    }
+
+    @TearDown
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public boolean permGranted() {
+        return accessChecker.perm(grantedPermission);
+    }
+
+    @Benchmark
+    public boolean permDenied() {
+        return accessChecker.perm("PERM_NOT_GRANTED");
+    }
+}
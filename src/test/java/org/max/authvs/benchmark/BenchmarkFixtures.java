@@ -0,0 +1,85 @@
+package org.max.authvs.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.max.authvs.security.*;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基准测试共用的对象构建，与运行时的 Bean 装配保持一致，只把 Redis 换成内存实现
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    static ObjectMapper objectMapper() {
+        return new ObjectMapper().findAndRegisterModules();
+    }
+
+    static JwtService jwtService(InMemoryRedisTemplate redis, ObjectMapper objectMapper, String algorithm) {
+        JwtKeyRing keyRing = new JwtKeyRing(redis, objectMapper, algorithm, Duration.ofDays(7), Duration.ofMinutes(10), "", true);
+        RedisCircuitBreaker circuitBreaker = circuitBreaker(redis);
+        TokenEpochService epochService = new TokenEpochService(redis, circuitBreaker, true);
+        return new JwtService(redis,
+                permissionCacheService(redis, circuitBreaker),
+                keyRing,
+                new RevocationRegistry(redis, circuitBreaker),
+                epochService,
+                new RefreshTokenService(redis, objectMapper, epochService, Duration.ofDays(7)),
+                circuitBreaker,
+                false,
+                "",
+                true);
+    }
+
+    static PermissionCacheService permissionCacheService(InMemoryRedisTemplate redis, ObjectMapper objectMapper) {
+        return permissionCacheService(redis, circuitBreaker(redis));
+    }
+
+    private static PermissionCacheService permissionCacheService(InMemoryRedisTemplate redis, RedisCircuitBreaker circuitBreaker) {
+        return new PermissionCacheService(redis, new AuthorityDictionary(redis), circuitBreaker,
+                10_000, Duration.ofSeconds(60), 0.2, 0.75);
+    }
+
+    private static RedisCircuitBreaker circuitBreaker(InMemoryRedisTemplate redis) {
+        return new RedisCircuitBreaker(redis, event -> {
+        }, 3);
+    }
+
+    /**
+     * 构造接近真实数据的用户：两个角色，指定数量的 PERM_* 权限分布在两个角色上
+     */
+    static CustomUserDetails user(int authorityCount, boolean superAdmin) {
+        Map<Long, List<GrantedAuthority>> roles = roleAuthorities(authorityCount, superAdmin);
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        roles.values().forEach(authorities::addAll);
+        return new CustomUserDetails(1L, "admin", "", "admin@example.com", "13800000000", 2, true,
+                List.copyOf(roles.keySet()), authorities);
+    }
+
+    static Map<Long, List<GrantedAuthority>> roleAuthorities(int authorityCount, boolean superAdmin) {
+        List<GrantedAuthority> primary = new ArrayList<>();
+        List<GrantedAuthority> auditor = new ArrayList<>();
+        primary.add(new SimpleGrantedAuthority("ROLE_" + (superAdmin ? "SUPER_ADMIN" : "OPERATOR")));
+        auditor.add(new SimpleGrantedAuthority("ROLE_AUDITOR"));
+        for (int i = 0; i < authorityCount; i++) {
+            (i % 4 == 0 ? auditor : primary).add(new SimpleGrantedAuthority("PERM_MODULE_" + (i / 10) + "_ACTION_" + i));
+        }
+        Map<Long, List<GrantedAuthority>> roles = new LinkedHashMap<>();
+        roles.put(1L, primary);
+        roles.put(2L, auditor);
+        return roles;
+    }
+
+    static String lastPermission(int authorityCount) {
+        int i = authorityCount - 1;
+        return "PERM_MODULE_" + (i / 10) + "_ACTION_" + i;
+    }
+}
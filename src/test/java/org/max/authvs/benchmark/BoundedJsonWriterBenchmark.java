@@ -0,0 +1,74 @@
+package org.max.authvs.benchmark;
+
+import org.max.authvs.api.dto.admin.in.AdminQueryParam;
+import org.max.authvs.api.dto.admin.in.AdminUpdateParam;
+import org.max.authvs.api.dto.auth.in.LoginParam;
+import org.max.authvs.utils.BoundedJsonWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BoundedJsonWriter：操作日志记录请求参数时执行（序列化、脱敏、截断一次完成）
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BoundedJsonWriterBenchmark {
+
+    private static final int MAX_PARAM_LENGTH = 2000;
+
+    private LoginParam login;
+    private Map<String, Object> update;
+    private AdminQueryParam noPassword;
+    private List<AdminUpdateParam> largePayload;
+
+    @Setup
+    public void setUp() {
+        login = new LoginParam("admin", "admin123", "web");
+        update = Map.of("id", 12, "username", "operator", "email", "operator@example.com",
+                "phone", "13800000000", "enabled", true, "oldPassword", "Old#Passw0rd", "newPassword", "New#Passw0rd",
+                "roleIds", List.of(1, 2, 3, 4, 5), "description", "x".repeat(512));
+        noPassword = new AdminQueryParam();
+        noPassword.setPageNum(1L);
+        noPassword.setPageSize(20L);
+        noPassword.setUsername("adm");
+        noPassword.setEnabled(1);
+        // 批量管理请求：远超长度上限，只应序列化前 2000 个字符
+        largePayload = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            AdminUpdateParam param = new AdminUpdateParam();
+            param.setId((long) i);
+            param.setEmail("user" + i + "@example.com");
+            param.setPassword("Passw0rd#" + i);
+            param.setRoleIds(List.of(2L, 3L));
+            largePayload.add(param);
+        }
+    }
+
+    @Benchmark
+    public String maskLogin() {
+        return BoundedJsonWriter.toJson(login, MAX_PARAM_LENGTH);
+    }
+
+    @Benchmark
+    public String maskUpdate() {
+        return BoundedJsonWriter.toJson(update, MAX_PARAM_LENGTH);
+    }
+
+    @Benchmark
+    public String maskNoPassword() {
+        return BoundedJsonWriter.toJson(noPassword, MAX_PARAM_LENGTH);
+    }
+
+    @Benchmark
+    public String maskLargePayload() {
+        return BoundedJsonWriter.toJson(largePayload, MAX_PARAM_LENGTH);
+    }
+}
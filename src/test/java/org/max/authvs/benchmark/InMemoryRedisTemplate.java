@@ -0,0 +1,190 @@
+package org.max.authvs.benchmark;
+
+import org.jspecify.annotations.NonNull;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基准测试用的内存版 StringRedisTemplate，不需要连接 Redis
+ * 只实现认证热路径用到的命令，TTL 被忽略；其余命令抛出 UnsupportedOperationException
+ * 通过连接回调或字节参数写入的二进制值按 ISO-8859-1 逐字节映射保存
+ */
+public class InMemoryRedisTemplate extends StringRedisTemplate {
+
+    private final Map<String, String> values = new ConcurrentHashMap<>();
+    private final Map<String, Map<Object, Object>> hashes = new ConcurrentHashMap<>();
+    private final ValueOperations<String, String> valueOps = proxy(ValueOperations.class, this::invokeValue);
+    private final HashOperations<String, Object, Object> hashOps = proxy(HashOperations.class, this::invokeHash);
+    private final RedisStringCommands stringCommands = proxy(RedisStringCommands.class, this::invokeString);
+    private final RedisConnection connection = proxy(RedisConnection.class, (method, args) -> switch (method) {
+        case "stringCommands" -> stringCommands;
+        case "close" -> null;
+        default -> throw new UnsupportedOperationException("RedisConnection." + method);
+    });
+
+    @Override
+    public @NonNull ValueOperations<String, String> opsForValue() {
+        return valueOps;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <HK, HV> @NonNull HashOperations<String, HK, HV> opsForHash() {
+        return (HashOperations<String, HK, HV>) (HashOperations<String, ?, ?>) hashOps;
+    }
+
+    @Override
+    public Boolean hasKey(@NonNull String key) {
+        return values.containsKey(key);
+    }
+
+    @Override
+    public Long countExistingKeys(@NonNull Collection<String> keys) {
+        return keys.stream().filter(values::containsKey).count();
+    }
+
+    @Override
+    public Boolean delete(@NonNull String key) {
+        return values.remove(key) != null;
+    }
+
+    @Override
+    public Long delete(@NonNull Collection<String> keys) {
+        return keys.stream().filter(key -> values.remove(key) != null).count();
+    }
+
+    @Override
+    public Long getExpire(@NonNull String key, @NonNull TimeUnit timeUnit) {
+        return values.containsKey(key) ? timeUnit.convert(5, TimeUnit.MINUTES) : -2L;
+    }
+
+    @Override
+    public Long convertAndSend(@NonNull String channel, @NonNull Object message) {
+        return 0L;
+    }
+
+    @Override
+    public <T> T execute(@NonNull RedisCallback<T> action) {
+        return action.doInRedis(connection);
+    }
+
+    @Override
+    public List<Object> executePipelined(@NonNull RedisCallback<?> action) {
+        action.doInRedis(connection);
+        return List.of();
+    }
+
+    /**
+     * 以字节传参的脚本先把参数还原成字符串，再按下面的规则处理
+     */
+    @Override
+    public <T> T execute(@NonNull RedisScript<T> script, @NonNull RedisSerializer<?> argsSerializer,
+                         @NonNull RedisSerializer<T> resultSerializer, @NonNull List<String> keys, Object @NonNull ... args) {
+        Object[] decoded = new Object[args.length];
+        for (int i = 0; i < args.length; i++) {
+            decoded[i] = args[i] instanceof byte[] bytes ? new String(bytes, StandardCharsets.ISO_8859_1) : args[i];
+        }
+        return execute(script, keys, decoded);
+    }
+
+    /**
+     * 列表结果的脚本按登录会话脚本处理：替换设备 jti、写入权限快照，返回 {纪元, 旧 jti, 旧 jti 剩余毫秒, 旧令牌族ID}
+     * 其他脚本直接返回成功
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T execute(@NonNull RedisScript<T> script, @NonNull List<String> keys, Object @NonNull ... args) {
+        if (List.class.equals(script.getResultType())) {
+            String old = values.put(keys.get(0), (String) args[0]);
+            if (!((String) args[2]).isEmpty()) {
+                values.put(keys.get(1), (String) args[2]);
+            }
+            return (T) List.of(0L, old != null ? old : "", old != null ? 300_000L : -2L, "");
+        }
+        return (T) Long.valueOf(1L);
+    }
+
+    private Object invokeValue(String method, Object[] args) {
+        return switch (method) {
+            case "get" -> values.get((String) args[0]);
+            case "set" -> {
+                values.put((String) args[0], (String) args[1]);
+                yield null;
+            }
+            case "setIfAbsent" -> values.putIfAbsent((String) args[0], (String) args[1]) == null;
+            case "increment" -> Long.valueOf(values.merge((String) args[0], "1",
+                    (a, b) -> String.valueOf(Long.parseLong(a) + 1)));
+            default -> throw new UnsupportedOperationException("ValueOperations." + method);
+        };
+    }
+
+    private Object invokeString(String method, Object[] args) {
+        String key = args[0] instanceof byte[] raw ? new String(raw, StandardCharsets.UTF_8) : null;
+        return switch (method) {
+            case "get" -> {
+                String value = values.get(key);
+                yield value != null ? value.getBytes(StandardCharsets.ISO_8859_1) : null;
+            }
+            case "set" -> {
+                values.put(key, new String((byte[]) args[1], StandardCharsets.ISO_8859_1));
+                yield true;
+            }
+            case "mGet" -> {
+                List<byte[]> result = new ArrayList<>();
+                for (Object rawKey : (Object[]) args[0]) {
+                    String value = values.get(new String((byte[]) rawKey, StandardCharsets.UTF_8));
+                    result.add(value != null ? value.getBytes(StandardCharsets.ISO_8859_1) : null);
+                }
+                yield result;
+            }
+            default -> throw new UnsupportedOperationException("RedisStringCommands." + method);
+        };
+    }
+
+    private Object invokeHash(String method, Object[] args) {
+        Map<Object, Object> hash = hashes.computeIfAbsent((String) args[0], key -> new ConcurrentHashMap<>());
+        return switch (method) {
+            case "entries" -> Map.copyOf(hash);
+            case "get" -> hash.get(args[1]);
+            case "put" -> {
+                hash.put(args[1], args[2]);
+                yield null;
+            }
+            case "putIfAbsent" -> hash.putIfAbsent(args[1], args[2]) == null;
+            case "delete" -> {
+                long removed = 0;
+                for (Object field : (Object[]) args[1]) {
+                    removed += hash.remove(field) != null ? 1 : 0;
+                }
+                yield removed;
+            }
+            default -> throw new UnsupportedOperationException("HashOperations." + method);
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<?> type, Invoker invoker) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> invoker.invoke(method.getName(), args));
+    }
+
+    @FunctionalInterface
+    private interface Invoker {
+        Object invoke(String method, Object[] args);
+    }
+}
@@ -0,0 +1,53 @@
+package org.max.authvs.benchmark;
+
+import org.max.authvs.api.dto.auth.DeviceType;
+import org.max.authvs.security.CustomUserDetails;
+import org.max.authvs.security.JwtService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtService 热路径：签发（登录/刷新）、每个请求都会执行的用户名提取与有效性校验
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtServiceBenchmark {
+
+    @Param({"RS256", "ES256"})
+    public String algorithm;
+
+    private JwtService jwtService;
+    private CustomUserDetails user;
+    private String token;
+
+    /**
+     * 每轮迭代重建：generateToken 每次都会撤销同一设备上一次的 jti，撤销集合和内存 Redis 随调用次数增长，
+     * 不重建时后面的迭代会越来越慢
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        jwtService = BenchmarkFixtures.jwtService(new InMemoryRedisTemplate(), BenchmarkFixtures.objectMapper(), algorithm);
+        user = BenchmarkFixtures.user(50, false);
+        token = jwtService.generateToken(user, DeviceType.WEB, user.getId());
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(user, DeviceType.WEB, user.getId());
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtService.extractUsername(token);
+    }
+
+    @Benchmark
+    public boolean isTokenValid() {
+        return jwtService.isTokenValid(token, user);
+    }
+}
@@ -0,0 +1,54 @@
+package org.max.authvs.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.max.authvs.security.CustomUserDetails;
+import org.max.authvs.security.PermissionCacheService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PermissionCacheService：登录时编码二进制权限快照；请求时优先命中进程内 L1，L1 未命中时从 Redis 解码
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PermissionCacheBenchmark {
+
+    @Param({"10", "50", "200"})
+    public int authorityCount;
+
+    private PermissionCacheService permissionCacheService;
+    private CustomUserDetails user;
+
+    @Setup
+    public void setUp() {
+        InMemoryRedisTemplate redis = new InMemoryRedisTemplate();
+        ObjectMapper objectMapper = BenchmarkFixtures.objectMapper();
+        permissionCacheService = BenchmarkFixtures.permissionCacheService(redis, objectMapper);
+        user = BenchmarkFixtures.user(authorityCount, false);
+        permissionCacheService.cachePermissions(user, BenchmarkFixtures.roleAuthorities(authorityCount, false));
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return permissionCacheService.encodeSnapshot(user);
+    }
+
+    /**
+     * 读取用户快照并合并角色权限（角色条目命中角色 L1）
+     */
+    @Benchmark
+    public Optional<CustomUserDetails> deserialize() {
+        return permissionCacheService.getByUsername(user.getUsername());
+    }
+
+    @Benchmark
+    public Optional<CustomUserDetails> localHit() {
+        return permissionCacheService.getUserDetails(user.getUsername());
+    }
+}
@@ -0,0 +1,135 @@
+package org.max.authvs.security;
+
+import org.junit.jupiter.api.Test;
+import org.max.authvs.benchmark.InMemoryRedisTemplate;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PermissionSnapshotCodecTest {
+
+    @Test
+    void userRoundTrip() {
+        CustomUserDetails details = new CustomUserDetails(42L, "operator", "secret", "op@example.com", "13800000000",
+                2, true, List.of(7L, 3L, 3L, 1000L), List.of());
+
+        byte[] data = PermissionSnapshotCodec.encodeUser(details);
+        assertTrue(PermissionSnapshotCodec.isCurrent(data));
+
+        PermissionSnapshotCodec.UserSnapshot snapshot = PermissionSnapshotCodec.decodeUser(data);
+        assertEquals(42L, snapshot.id());
+        assertEquals("operator", snapshot.username());
+        assertEquals("op@example.com", snapshot.email());
+        assertEquals("13800000000", snapshot.phone());
+        assertEquals(2, snapshot.userType());
+        assertTrue(snapshot.enabled());
+        assertEquals(List.of(3L, 3L, 7L, 1000L), snapshot.roleIds());
+        assertTrue(snapshot.cachedAt() > 0);
+    }
+
+    @Test
+    void userRoundTripWithoutOptionalFields() {
+        CustomUserDetails details = new CustomUserDetails(1L, "admin", "", null, null, null, false,
+                List.of(), List.of());
+
+        PermissionSnapshotCodec.UserSnapshot snapshot =
+                PermissionSnapshotCodec.decodeUser(PermissionSnapshotCodec.encodeUser(details));
+        assertEquals("admin", snapshot.username());
+        assertNull(snapshot.email());
+        assertNull(snapshot.phone());
+        assertNull(snapshot.userType());
+        assertFalse(snapshot.enabled());
+        assertEquals(List.of(), snapshot.roleIds());
+    }
+
+    @Test
+    void userWithoutRoleIdsCannotBeEncoded() {
+        CustomUserDetails details = new CustomUserDetails(1L, "admin", "", null, null, null, true, List.of());
+        assertThrows(IllegalArgumentException.class, () -> PermissionSnapshotCodec.encodeUser(details));
+    }
+
+    @Test
+    void sparseRoleUsesIdList() {
+        AuthorityDictionary dictionary = new AuthorityDictionary(new InMemoryRedisTemplate());
+        for (int i = 0; i < 500; i++) {
+            dictionary.idOf("PERM_FILLER_" + i);
+        }
+        List<GrantedAuthority> granted = authorities("PERM_FILLER_3", "PERM_FILLER_499", "ROLE_ADMIN");
+
+        byte[] data = PermissionSnapshotCodec.encodeRole(granted, dictionary);
+        // ID 列表只需几个字节；位图至少 8 个 long
+        assertTrue(data.length < 32, "expected id list encoding, got " + data.length + " bytes");
+        assertEquals(names(granted), names(PermissionSnapshotCodec.decodeRole(data, dictionary)));
+    }
+
+    @Test
+    void denseRoleUsesBitset() {
+        AuthorityDictionary dictionary = new AuthorityDictionary(new InMemoryRedisTemplate());
+        List<GrantedAuthority> granted = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            granted.add(AuthorityIndex.authority("PERM_DENSE_" + i));
+        }
+
+        byte[] data = PermissionSnapshotCodec.encodeRole(granted, dictionary);
+        // 300 个连续 ID：位图 5 个 long（40 字节），ID 列表约 300 字节
+        assertTrue(data.length < 64, "expected bitset encoding, got " + data.length + " bytes");
+        List<GrantedAuthority> decoded = PermissionSnapshotCodec.decodeRole(data, dictionary);
+        assertEquals(names(granted), names(decoded));
+        // 解码直接复用共享权限实例
+        assertSame(AuthorityIndex.authority("PERM_DENSE_7"),
+                decoded.stream().filter(a -> a.getAuthority().equals("PERM_DENSE_7")).findFirst().orElseThrow());
+    }
+
+    @Test
+    void duplicateAuthoritiesAreEncodedOnce() {
+        AuthorityDictionary dictionary = new AuthorityDictionary(new InMemoryRedisTemplate());
+        byte[] data = PermissionSnapshotCodec.encodeRole(authorities("PERM_A", "PERM_B", "PERM_A"), dictionary);
+        assertEquals(2, PermissionSnapshotCodec.decodeRole(data, dictionary).size());
+    }
+
+    @Test
+    void decodeReloadsDictionaryBehindSnapshot() {
+        InMemoryRedisTemplate redis = new InMemoryRedisTemplate();
+        AuthorityDictionary writer = new AuthorityDictionary(redis);
+        byte[] data = PermissionSnapshotCodec.encodeRole(authorities("PERM_X", "PERM_Y"), writer);
+
+        // 另一个节点的本地字典为空，解码时从 Redis 重新加载
+        AuthorityDictionary reader = new AuthorityDictionary(redis);
+        assertEquals(0, reader.version());
+        assertEquals(Set.of("PERM_X", "PERM_Y"), names(PermissionSnapshotCodec.decodeRole(data, reader)));
+        assertEquals(writer.version(), reader.version());
+    }
+
+    @Test
+    void decodeFailsWhenDictionaryCannotCatchUp() {
+        byte[] data = PermissionSnapshotCodec.encodeRole(authorities("PERM_X"),
+                new AuthorityDictionary(new InMemoryRedisTemplate()));
+
+        AuthorityDictionary unrelated = new AuthorityDictionary(new InMemoryRedisTemplate());
+        assertThrows(IllegalArgumentException.class, () -> PermissionSnapshotCodec.decodeRole(data, unrelated));
+    }
+
+    @Test
+    void rejectsForeignData() {
+        byte[] legacy = "{\"username\":\"admin\"}".getBytes();
+        assertFalse(PermissionSnapshotCodec.isCurrent(legacy));
+        assertThrows(IllegalArgumentException.class, () -> PermissionSnapshotCodec.decodeUser(legacy));
+    }
+
+    private static List<GrantedAuthority> authorities(String... names) {
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        for (String name : names) {
+            authorities.add(AuthorityIndex.authority(name));
+        }
+        return authorities;
+    }
+
+    private static Set<String> names(List<GrantedAuthority> authorities) {
+        return authorities.stream().map(GrantedAuthority::getAuthority).collect(Collectors.toSet());
+    }
+}
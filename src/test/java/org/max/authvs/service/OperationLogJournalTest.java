@@ -0,0 +1,228 @@
+package org.max.authvs.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.max.authvs.entity.OperationLog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OperationLogJournalTest {
+
+    private static final int SEGMENT_SIZE = 1 << 20;
+    private static final long MAX_BYTES = 16L << 20;
+    private static final String FIRST_SEGMENT = "%020d.seg".formatted(0);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void appendReadCommitAndReopen() throws IOException {
+        try (OperationLogJournal journal = open()) {
+            for (int i = 0; i < 5; i++) {
+                assertTrue(journal.append(log(i)));
+            }
+            OperationLogJournal.Batch batch = journal.read(journal.getCheckpoint(), 3);
+            assertEquals(List.of("user0", "user1", "user2"), usernames(batch));
+            assertEquals(3, batch.records());
+            journal.commit(batch.next(), batch.records());
+            assertEquals(2, journal.getPendingRecords());
+        }
+
+        try (OperationLogJournal journal = open()) {
+            assertEquals(2, journal.getPendingRecords());
+            OperationLogJournal.Batch batch = journal.read(journal.getCheckpoint(), 10);
+            assertEquals(List.of("user3", "user4"), usernames(batch));
+            OperationLog first = batch.logs().getFirst();
+            assertEquals(3L, first.getUserId());
+            assertEquals(2, first.getPlatformType());
+            assertEquals(LocalDateTime.of(2025, 1, 2, 3, 4, 5, 6000), first.getCreatedAt());
+            assertNull(first.getErrorMessage());
+        }
+    }
+
+    @Test
+    void deletesShippedSegments() throws IOException {
+        try (OperationLogJournal journal = open()) {
+            String params = "x".repeat(100_000);
+            for (int i = 0; i < 30; i++) {
+                OperationLog log = log(i);
+                log.setRequestParams(params);
+                assertTrue(journal.append(log));
+            }
+            assertTrue(segmentCount() > 1);
+            OperationLogJournal.Batch batch = journal.read(journal.getCheckpoint(), 100);
+            assertEquals(30, batch.logs().size());
+            journal.commit(batch.next(), batch.records());
+            assertEquals(1, segmentCount());
+            assertEquals(0, journal.getPendingBytes());
+        }
+    }
+
+    @Test
+    void recoveryDiscardsTornTail() throws IOException {
+        long end;
+        try (OperationLogJournal journal = open()) {
+            for (int i = 0; i < 3; i++) {
+                journal.append(log(i));
+            }
+            end = journal.getPendingBytes();
+        }
+        // 进程在写入负载时退出：长度已写入，CRC 与负载不匹配
+        writeRaw(end, header(40, 0x1234), new byte[20]);
+
+        try (OperationLogJournal journal = open()) {
+            assertEquals(3, journal.getPendingRecords());
+            assertEquals(end, journal.getPendingBytes());
+            journal.append(log(3));
+            OperationLogJournal.Batch batch = journal.read(journal.getCheckpoint(), 10);
+            assertEquals(List.of("user0", "user1", "user2", "user3"), usernames(batch));
+            assertEquals(0, journal.getCorruptRecords());
+        }
+    }
+
+    @Test
+    void crcFailureInActiveSegmentSkipsOnlyUpToWritePosition() throws IOException {
+        try (OperationLogJournal journal = open()) {
+            for (int i = 0; i < 3; i++) {
+                journal.append(log(i));
+            }
+            long end = journal.getPendingBytes();
+            int firstLength = readInt(0);
+            // 损坏第二条记录的负载
+            writeRaw(8 + firstLength + 8 + 1, new byte[]{(byte) 0xFF});
+
+            OperationLogJournal.Batch batch = journal.read(journal.getCheckpoint(), 10);
+            assertEquals(List.of("user0"), usernames(batch));
+            assertEquals(end, batch.next());
+            assertEquals(1, journal.getCorruptRecords());
+            journal.commit(batch.next(), batch.records());
+            assertEquals(0, journal.getPendingBytes());
+
+            // 跳过之后追加到同一段的记录仍会被读取
+            journal.append(log(3));
+            assertTrue(journal.getPendingBytes() > 0);
+            assertEquals(List.of("user3"), usernames(journal.read(journal.getCheckpoint(), 10)));
+        }
+    }
+
+    @Test
+    void undecodableRecordIsSkippedAndCounted() throws IOException {
+        long end;
+        try (OperationLogJournal journal = open()) {
+            journal.append(log(0));
+            end = journal.getPendingBytes();
+        }
+        // CRC 正确但格式版本未知（如升级后的新格式）
+        byte[] payload = {99, 1, 2, 3};
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        writeRaw(end, header(payload.length, (int) crc.getValue()), payload);
+
+        try (OperationLogJournal journal = open()) {
+            journal.append(log(2));
+            assertEquals(3, journal.getPendingRecords());
+            OperationLogJournal.Batch batch = journal.read(journal.getCheckpoint(), 10);
+            assertEquals(List.of("user0", "user2"), usernames(batch));
+            assertEquals(3, batch.records());
+            assertEquals(1, journal.getCorruptRecords());
+            journal.commit(batch.next(), batch.records());
+            assertEquals(0, journal.getPendingRecords());
+            assertTrue(journal.read(journal.getCheckpoint(), 10).logs().isEmpty());
+        }
+    }
+
+    @Test
+    void rejectsAppendOverMaxBytes() throws IOException {
+        try (OperationLogJournal journal = OperationLogJournal.open(dir, SEGMENT_SIZE, SEGMENT_SIZE)) {
+            OperationLog log = log(0);
+            log.setRequestParams("x".repeat(300_000));
+            assertTrue(journal.append(log));
+            assertTrue(journal.append(log));
+            assertTrue(journal.append(log));
+            assertFalse(journal.append(log));
+        }
+    }
+
+    @Test
+    void rejectsValueThatWouldDecodeAsNull() throws IOException {
+        try (OperationLogJournal journal = open()) {
+            OperationLog log = log(0);
+            log.setExecuteTime(Long.MIN_VALUE);
+            assertFalse(journal.append(log));
+            assertEquals(0, journal.getPendingRecords());
+
+            log.setExecuteTime(Long.MAX_VALUE);
+            assertTrue(journal.append(log));
+            assertEquals(Long.MAX_VALUE, journal.read(journal.getCheckpoint(), 1).logs().getFirst().getExecuteTime());
+        }
+    }
+
+    @Test
+    void directoryIsLockedByOneInstance() throws IOException {
+        OperationLogJournal journal = open();
+        assertThrows(IllegalStateException.class, this::open);
+        journal.close();
+        open().close();
+    }
+
+    private OperationLogJournal open() throws IOException {
+        return OperationLogJournal.open(dir, SEGMENT_SIZE, MAX_BYTES);
+    }
+
+    private static OperationLog log(int i) {
+        OperationLog log = new OperationLog();
+        log.setUserId((long) i);
+        log.setUsername("user" + i);
+        log.setOperationType("QUERY");
+        log.setOperationModule("用户管理");
+        log.setRequestMethod("GET");
+        log.setRequestUrl("/api/admins/" + i);
+        log.setPlatformType(2);
+        log.setExecuteTime(12L);
+        log.setStatus("SUCCESS");
+        log.setCreatedAt(LocalDateTime.of(2025, 1, 2, 3, 4, 5, 6000));
+        return log;
+    }
+
+    private static List<String> usernames(OperationLogJournal.Batch batch) {
+        return batch.logs().stream().map(OperationLog::getUsername).toList();
+    }
+
+    private static byte[] header(int length, int crc) {
+        return ByteBuffer.allocate(8).putInt(length).putInt(crc).array();
+    }
+
+    private int readInt(long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(dir.resolve(FIRST_SEGMENT), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(4);
+            channel.read(buffer, position);
+            return buffer.flip().getInt();
+        }
+    }
+
+    private void writeRaw(long position, byte[]... chunks) throws IOException {
+        try (FileChannel channel = FileChannel.open(dir.resolve(FIRST_SEGMENT), StandardOpenOption.WRITE)) {
+            for (byte[] chunk : chunks) {
+                channel.write(ByteBuffer.wrap(chunk), position);
+                position += chunk.length;
+            }
+        }
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(f -> f.getFileName().toString().endsWith(".seg")).count();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package org.max.authvs.utils;
+
+import cn.hutool.core.util.DesensitizedUtil;
+import org.junit.jupiter.api.Test;
+import org.max.authvs.annotation.Sensitive;
+import org.max.authvs.api.dto.admin.in.AdminUpdateParam;
+import org.max.authvs.api.dto.auth.in.LoginParam;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedJsonWriterTest {
+
+    record Contact(@Sensitive(Sensitive.Type.EMAIL) String email,
+                   @Sensitive(Sensitive.Type.MOBILE_PHONE) String phone,
+                   String note) {
+    }
+
+    @Test
+    void masksSensitiveRecordComponents() {
+        assertEquals("{\"username\":\"admin\",\"password\":\"******\",\"deviceType\":\"web\"}",
+                BoundedJsonWriter.toJson(new LoginParam("admin", "admin123", "web"), 2000));
+    }
+
+    @Test
+    void masksSensitiveFieldsAndOmitsNulls() {
+        AdminUpdateParam param = new AdminUpdateParam();
+        param.setId(1L);
+        param.setPassword("Passw0rd#");
+        param.setRoleIds(List.of(2L, 3L));
+
+        assertEquals("{\"id\":1,\"password\":\"******\",\"roleIds\":[2,3]}", BoundedJsonWriter.toJson(param, 2000));
+    }
+
+    @Test
+    void masksEmailAndPhone() {
+        String json = BoundedJsonWriter.toJson(new Contact("operator@example.com", "13812345678", "hi"), 2000);
+
+        assertEquals("{\"email\":\"" + DesensitizedUtil.email("operator@example.com")
+                + "\",\"phone\":\"" + DesensitizedUtil.mobilePhone("13812345678") + "\",\"note\":\"hi\"}", json);
+        assertFalse(json.contains("operator@"));
+        assertFalse(json.contains("12345678"));
+    }
+
+    @Test
+    void masksPasswordMapKeys() {
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("username", "operator");
+        params.put("oldPassword", "Old#Passw0rd");
+        params.put("newPassword", "New#Passw0rd");
+        params.put("skipped", null);
+
+        assertEquals("{\"username\":\"operator\",\"oldPassword\":\"******\",\"newPassword\":\"******\"}",
+                BoundedJsonWriter.toJson(params, 2000));
+    }
+
+    @Test
+    void escapesStrings() {
+        assertEquals("\"a\\\"b\\\\c\\n\\t\\u0001\"", BoundedJsonWriter.toJson("a\"b\\c\n\t\u0001", 2000));
+    }
+
+    @Test
+    void truncatesAtLimit() {
+        List<AdminUpdateParam> params = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            AdminUpdateParam param = new AdminUpdateParam();
+            param.setId((long) i);
+            param.setPassword("Passw0rd#" + i);
+            params.add(param);
+        }
+
+        BoundedJsonWriter writer = new BoundedJsonWriter(100).value(params);
+        String json = writer.toString();
+        assertTrue(writer.isTruncated());
+        assertEquals(100 + "...".length(), json.length());
+        assertTrue(json.startsWith("[{\"id\":0,\"password\":\"******\"},{\"id\":1,"));
+        assertTrue(json.endsWith("..."));
+        assertFalse(json.contains("Passw0rd"));
+    }
+
+    @Test
+    void doesNotTruncateAtExactLimit() {
+        String json = BoundedJsonWriter.toJson(List.of(1, 2), 5);
+        assertEquals("[1,2]", json);
+        assertFalse(new BoundedJsonWriter(5).value(List.of(1, 2)).isTruncated());
+    }
+
+    @Test
+    void stopsWritingValuesAfterTruncation() {
+        BoundedJsonWriter writer = new BoundedJsonWriter(8)
+                .value("abcdef")
+                .separator(' ')
+                .value("ghijkl")
+                .separator(' ')
+                .value(1);
+        assertEquals("\"abcdef\"...", writer.toString());
+        assertTrue(writer.isTruncated());
+    }
+
+    @Test
+    void joinsValuesWithSeparator() {
+        BoundedJsonWriter writer = new BoundedJsonWriter(100).value(1).separator(' ').value("x");
+        assertEquals("1 \"x\"", writer.toString());
+        assertFalse(writer.isTruncated());
+    }
+
+    @Test
+    void limitsNestingDepth() {
+        Map<String, Object> self = new HashMap<>();
+        self.put("self", self);
+
+        String json = BoundedJsonWriter.toJson(self, 10_000);
+        assertTrue(json.contains("\"...\""));
+        assertTrue(json.length() < 10_000);
+    }
+}